@@ -27,10 +27,12 @@ import org.jfree.chart.plot.Plot;
 import org.jfree.chart.renderer.category.AreaRenderer;
 import org.jfree.data.category.DefaultCategoryDataset;
 import org.sonar.api.charts.AbstractChart;
+import org.sonar.api.charts.Cacheable;
 import org.sonar.api.charts.ChartParameters;
 
 import java.text.NumberFormat;
 
+@Cacheable
 public class DistributionAreaChart extends AbstractChart {
   private static final String PARAM_COLORS = "c";
 
@@ -27,11 +27,13 @@ import org.jfree.chart.plot.Plot;
 import org.jfree.chart.renderer.category.BarRenderer;
 import org.jfree.data.category.DefaultCategoryDataset;
 import org.sonar.api.charts.AbstractChart;
+import org.sonar.api.charts.Cacheable;
 import org.sonar.api.charts.ChartParameters;
 
 import java.awt.*;
 import java.text.DecimalFormat;
 
+@Cacheable
 public class DistributionBarChart extends AbstractChart {
 
 
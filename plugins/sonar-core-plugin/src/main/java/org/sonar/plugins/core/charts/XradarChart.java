@@ -25,10 +25,12 @@ import org.jfree.chart.plot.SpiderWebPlot;
 import org.jfree.data.category.CategoryDataset;
 import org.jfree.data.category.DefaultCategoryDataset;
 import org.sonar.api.charts.AbstractChart;
+import org.sonar.api.charts.Cacheable;
 import org.sonar.api.charts.ChartParameters;
 
 import java.awt.*;
 
+@Cacheable
 public class XradarChart extends AbstractChart {
 
   /**
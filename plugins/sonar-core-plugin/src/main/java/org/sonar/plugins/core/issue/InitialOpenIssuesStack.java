@@ -20,7 +20,6 @@
 
 package org.sonar.plugins.core.issue;
 
-import java.util.Collections;
 import org.sonar.api.BatchExtension;
 import org.sonar.api.batch.InstantiationStrategy;
 import org.sonar.batch.index.Cache;
@@ -28,7 +27,7 @@ import org.sonar.batch.index.Caches;
 import org.sonar.core.issue.db.IssueChangeDto;
 import org.sonar.core.issue.db.IssueDto;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -37,7 +36,10 @@ import static com.google.common.collect.Lists.newArrayList;
 public class InitialOpenIssuesStack implements BatchExtension {
 
   private final Cache<String, IssueDto> issuesCache;
-  private final Cache<String, ArrayList<IssueChangeDto>> issuesChangelogCache;
+  // changes are grouped by issue key and ordered by a sequence number, so that adding a change
+  // does not require to read and rewrite all the previous changes of the issue
+  private final Cache<Long, IssueChangeDto> issuesChangelogCache;
+  private long changeSequence = 0L;
 
   public InitialOpenIssuesStack(Caches caches) {
     issuesCache = caches.createCache("last-open-issues");
@@ -64,22 +66,24 @@ public class InitialOpenIssuesStack implements BatchExtension {
   }
 
   public InitialOpenIssuesStack addChangelog(IssueChangeDto issueChangeDto) {
-    List<IssueChangeDto> changeDtos = issuesChangelogCache.get(issueChangeDto.getIssueKey());
-    if (changeDtos == null) {
-      changeDtos = newArrayList();
-    }
-    changeDtos.add(issueChangeDto);
-    issuesChangelogCache.put(issueChangeDto.getIssueKey(), newArrayList(changeDtos));
+    issuesChangelogCache.put(issueChangeDto.getIssueKey(), changeSequence++, issueChangeDto);
     return this;
   }
 
   public List<IssueChangeDto> selectChangelog(String issueKey) {
-    List<IssueChangeDto> changeDtos = issuesChangelogCache.get(issueKey);
+    List<IssueChangeDto> changeDtos = null;
+    for (IssueChangeDto changeDto : issuesChangelogCache.values(issueKey)) {
+      if (changeDtos == null) {
+        changeDtos = newArrayList();
+      }
+      changeDtos.add(changeDto);
+    }
     return changeDtos != null ? changeDtos : Collections.<IssueChangeDto>emptyList();
   }
 
   public void clear() {
     issuesCache.clearAll();
     issuesChangelogCache.clearAll();
+    changeSequence = 0L;
   }
 }
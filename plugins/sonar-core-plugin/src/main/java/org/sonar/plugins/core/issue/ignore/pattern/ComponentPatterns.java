@@ -0,0 +1,147 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.core.issue.ignore.pattern;
+
+import com.google.common.collect.Maps;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+
+import javax.annotation.CheckForNull;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Patterns of a single component, compiled so that looking for the first pattern matching an issue
+ * does not iterate over all the patterns and line ranges :
+ * <ul>
+ * <li>line ranges are split into elementary intervals, found by binary search, that reference the patterns covering them</li>
+ * <li>rule wildcards are evaluated once per rule key</li>
+ * </ul>
+ * Patterns are identified by their position, so the first matching pattern is the first one that has been added.
+ */
+class ComponentPatterns {
+
+  private final List<IssuePattern> patterns;
+
+  // patterns that match the component and do not check lines
+  private final BitSet allLinesPatterns = new BitSet();
+
+  // sorted bounds of elementary intervals. Interval i is [bounds[i], bounds[i+1][
+  private final int[] bounds;
+  private final BitSet[] patternsByInterval;
+
+  private final Map<String, BitSet> patternsByRule = Maps.newHashMap();
+
+  ComponentPatterns(String componentKey, List<IssuePattern> patterns) {
+    this.patterns = patterns;
+
+    int rangeCount = 0;
+    for (IssuePattern pattern : patterns) {
+      rangeCount += pattern.getLineRanges().size();
+    }
+    int[] allBounds = new int[rangeCount * 2];
+    int boundIndex = 0;
+    for (IssuePattern pattern : patterns) {
+      for (LineRange range : pattern.getLineRanges()) {
+        allBounds[boundIndex++] = range.from();
+        allBounds[boundIndex++] = range.to() + 1;
+      }
+    }
+    bounds = distinctSorted(allBounds);
+    patternsByInterval = new BitSet[bounds.length];
+
+    for (int index = 0; index < patterns.size(); index++) {
+      IssuePattern pattern = patterns.get(index);
+      if (!pattern.matchResource(componentKey)) {
+        continue;
+      }
+      if (!pattern.isCheckLines()) {
+        allLinesPatterns.set(index);
+      } else {
+        for (LineRange range : pattern.getLineRanges()) {
+          int from = Arrays.binarySearch(bounds, range.from());
+          int to = Arrays.binarySearch(bounds, range.to() + 1);
+          for (int interval = from; interval < to; interval++) {
+            if (patternsByInterval[interval] == null) {
+              patternsByInterval[interval] = new BitSet();
+            }
+            patternsByInterval[interval].set(index);
+          }
+        }
+      }
+    }
+  }
+
+  private static int[] distinctSorted(int[] values) {
+    Arrays.sort(values);
+    int size = 0;
+    for (int index = 0; index < values.length; index++) {
+      if (size == 0 || values[size - 1] != values[index]) {
+        values[size++] = values[index];
+      }
+    }
+    return Arrays.copyOf(values, size);
+  }
+
+  @CheckForNull
+  IssuePattern getMatchingPattern(Issue issue) {
+    RuleKey ruleKey = issue.ruleKey();
+    if (ruleKey == null) {
+      return null;
+    }
+    BitSet candidates = (BitSet) allLinesPatterns.clone();
+    BitSet onLine = patternsOnLine(issue.line());
+    if (onLine != null) {
+      candidates.or(onLine);
+    }
+    candidates.and(patternsMatchingRule(ruleKey));
+    int first = candidates.nextSetBit(0);
+    return first >= 0 ? patterns.get(first) : null;
+  }
+
+  @CheckForNull
+  private BitSet patternsOnLine(Integer line) {
+    if (line == null || bounds.length == 0) {
+      return null;
+    }
+    int position = Arrays.binarySearch(bounds, line);
+    // index of the greatest bound lower than or equal to the line
+    int interval = position >= 0 ? position : (-position - 2);
+    return interval >= 0 ? patternsByInterval[interval] : null;
+  }
+
+  private BitSet patternsMatchingRule(RuleKey ruleKey) {
+    String key = new StringBuilder().append(ruleKey.repository()).append(':').append(ruleKey.rule()).toString();
+    BitSet result = patternsByRule.get(key);
+    if (result == null) {
+      result = new BitSet();
+      for (int index = 0; index < patterns.size(); index++) {
+        if (patterns.get(index).matchRule(ruleKey)) {
+          result.set(index);
+        }
+      }
+      patternsByRule.put(key, result);
+    }
+    return result;
+  }
+}
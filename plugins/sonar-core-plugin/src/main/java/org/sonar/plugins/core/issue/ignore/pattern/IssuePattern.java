@@ -107,6 +107,10 @@ public class IssuePattern {
     return this;
   }
 
+  Set<LineRange> getLineRanges() {
+    return lineRanges;
+  }
+
   Set<Integer> getAllLines() {
     Set<Integer> allLines = Sets.newLinkedHashSet(lines);
     for (LineRange lineRange : lineRanges) {
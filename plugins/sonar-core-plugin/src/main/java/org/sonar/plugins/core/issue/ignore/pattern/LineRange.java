@@ -36,6 +36,14 @@ public class LineRange {
     this.to = to;
   }
 
+  int from() {
+    return from;
+  }
+
+  int to() {
+    return to;
+  }
+
   public boolean in(int lineId) {
     return from <= lineId && lineId <= to;
   }
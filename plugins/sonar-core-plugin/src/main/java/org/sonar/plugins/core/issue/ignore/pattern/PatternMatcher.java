@@ -20,35 +20,43 @@
 package org.sonar.plugins.core.issue.ignore.pattern;
 
 import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import org.sonar.api.issue.Issue;
 
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 public class PatternMatcher {
 
   private Multimap<String, IssuePattern> patternByComponent = LinkedHashMultimap.create();
 
-  public IssuePattern getMatchingPattern(Issue issue) {
-    IssuePattern matchingPattern = null;
-    Iterator<IssuePattern> patternIterator = getPatternsForComponent(issue.componentKey()).iterator();
-    while(matchingPattern == null && patternIterator.hasNext()) {
-      IssuePattern nextPattern = patternIterator.next();
-      if (nextPattern.match(issue)) {
-        matchingPattern = nextPattern;
-      }
+  // compiled patterns, built on demand and reset when patterns of the component change
+  private Map<String, ComponentPatterns> compiledPatternsByComponent = Maps.newHashMap();
+
+  public synchronized IssuePattern getMatchingPattern(Issue issue) {
+    String componentKey = issue.componentKey();
+    Collection<IssuePattern> patterns = getPatternsForComponent(componentKey);
+    if (patterns.isEmpty()) {
+      return null;
+    }
+    ComponentPatterns compiledPatterns = compiledPatternsByComponent.get(componentKey);
+    if (compiledPatterns == null) {
+      compiledPatterns = new ComponentPatterns(componentKey, Lists.newArrayList(patterns));
+      compiledPatternsByComponent.put(componentKey, compiledPatterns);
     }
-    return matchingPattern;
+    return compiledPatterns.getMatchingPattern(issue);
   }
 
   public Collection<IssuePattern> getPatternsForComponent(String componentKey) {
     return patternByComponent.get(componentKey);
   }
 
-  public void addPatternForComponent(String component, IssuePattern pattern) {
+  public synchronized void addPatternForComponent(String component, IssuePattern pattern) {
     patternByComponent.put(component, pattern.forResource(component));
+    compiledPatternsByComponent.remove(component);
   }
 
   public void addPatternToExcludeResource(String resource) {
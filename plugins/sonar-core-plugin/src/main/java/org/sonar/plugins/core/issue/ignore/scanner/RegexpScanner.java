@@ -22,7 +22,7 @@ package org.sonar.plugins.core.issue.ignore.scanner;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,129 +30,224 @@ import org.sonar.api.BatchExtension;
 import org.sonar.plugins.core.issue.ignore.pattern.ExclusionPatternInitializer;
 import org.sonar.plugins.core.issue.ignore.pattern.IssuePattern;
 import org.sonar.plugins.core.issue.ignore.pattern.LineRange;
+import org.sonar.plugins.core.issue.ignore.pattern.PatternMatcher;
 
+import javax.annotation.CheckForNull;
+
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.charset.Charset;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
-
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Scans source files for the regular expressions that exclude a whole file or blocks of lines.
+ * <p/>
+ * Lines are streamed and all the regular expressions of a kind are combined in a single alternation, so that each line is
+ * evaluated once whatever the number of configured patterns. The state of a scan is local to the call, so
+ * files can be scanned concurrently.
+ */
 public class RegexpScanner implements BatchExtension {
 
   private static final Logger LOG = LoggerFactory.getLogger(RegexpScanner.class);
 
-  private ExclusionPatternInitializer exclusionPatternInitializer;
-  private List<java.util.regex.Pattern> allFilePatterns;
-  private List<DoubleRegexpMatcher> blockMatchers;
+  // constructs that can not be combined in an alternation: numbered back-references (groups are renumbered),
+  // quotes which may be left open (\Q), comments mode which may swallow the closing parenthesis (?x) and
+  // named groups which may be declared twice (?<name>
+  private static final Pattern NOT_COMBINABLE = Pattern.compile("\\\\[1-9]|\\\\Q|\\(\\?[a-zA-Z-]*x|\\(\\?<");
 
-  // fields to be reset at every new scan
-  private DoubleRegexpMatcher currentMatcher;
-  private int fileLength;
-  private List<LineExclusion> lineExclusions;
-  private LineExclusion currentLineExclusion;
+  private final ExclusionPatternInitializer exclusionPatternInitializer;
+  private final List<Pattern> allFilePatterns;
+  private final Pattern allFilePattern;
+  private final List<DoubleRegexpMatcher> blockMatchers;
+  private final Pattern beginBlockPattern;
 
   public RegexpScanner(ExclusionPatternInitializer patternsInitializer) {
     this.exclusionPatternInitializer = patternsInitializer;
 
-    lineExclusions = Lists.newArrayList();
     allFilePatterns = Lists.newArrayList();
-    blockMatchers = Lists.newArrayList();
-
+    List<String> allFileRegexps = Lists.newArrayList();
     for (IssuePattern pattern : patternsInitializer.getAllFilePatterns()) {
-      allFilePatterns.add(java.util.regex.Pattern.compile(pattern.getAllFileRegexp()));
+      allFileRegexps.add(pattern.getAllFileRegexp());
+      allFilePatterns.add(Pattern.compile(pattern.getAllFileRegexp()));
     }
+    allFilePattern = combine(allFileRegexps);
+
+    blockMatchers = Lists.newArrayList();
+    List<String> beginBlockRegexps = Lists.newArrayList();
     for (IssuePattern pattern : patternsInitializer.getBlockPatterns()) {
+      beginBlockRegexps.add(pattern.getBeginBlockRegexp());
       blockMatchers.add(new DoubleRegexpMatcher(
-          java.util.regex.Pattern.compile(pattern.getBeginBlockRegexp()),
-          java.util.regex.Pattern.compile(pattern.getEndBlockRegexp())));
+        Pattern.compile(pattern.getBeginBlockRegexp()),
+        Pattern.compile(pattern.getEndBlockRegexp())));
     }
-
-    init();
+    beginBlockPattern = combine(beginBlockRegexps);
   }
 
-  private void init() {
-    currentMatcher = null;
-    fileLength = 0;
-    lineExclusions.clear();
-    currentLineExclusion = null;
+  /**
+   * @return a single pattern matching a line if and only if at least one of the regexps matches it, or null if the
+   * regexps can not be safely combined
+   */
+  @CheckForNull
+  static Pattern combine(Collection<String> regexps) {
+    if (regexps.size() < 2) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder();
+    for (String regexp : regexps) {
+      if (NOT_COMBINABLE.matcher(regexp).find()) {
+        return null;
+      }
+      if (sb.length() > 0) {
+        sb.append('|');
+      }
+      sb.append("(?:").append(regexp).append(')');
+    }
+    try {
+      return Pattern.compile(sb.toString());
+    } catch (PatternSyntaxException e) {
+      // regexps are valid individually, they are evaluated one by one
+      return null;
+    }
   }
 
   public void scan(String resource, File file, Charset sourcesEncoding) throws IOException {
     LOG.debug("Scanning {}", resource);
-    init();
-
-    List<String> lines = FileUtils.readLines(file, sourcesEncoding.name());
-    int lineIndex = 0;
-    for (String line : lines) {
-      lineIndex++;
-      if (line.trim().length() == 0) {
-        continue;
+    long start = System.currentTimeMillis();
+
+    BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), sourcesEncoding));
+    try {
+      new FileScan(resource).scan(reader);
+    } finally {
+      IOUtils.closeQuietly(reader);
+    }
+    LOG.debug("- Scanned in {} ms", System.currentTimeMillis() - start);
+  }
+
+  @CheckForNull
+  private Pattern findAllFilePattern(String line) {
+    if (allFilePattern != null && !allFilePattern.matcher(line).find()) {
+      return null;
+    }
+    for (Pattern pattern : allFilePatterns) {
+      if (pattern.matcher(line).find()) {
+        return pattern;
       }
+    }
+    return null;
+  }
 
-      // first check the single regexp patterns that can be used to totally exclude a file
-      for (java.util.regex.Pattern pattern : allFilePatterns) {
-        if (pattern.matcher(line).find()) {
-          exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeResource(resource);
+  @CheckForNull
+  private DoubleRegexpMatcher findBlockMatcher(String line) {
+    if (beginBlockPattern != null && !beginBlockPattern.matcher(line).find()) {
+      return null;
+    }
+    for (DoubleRegexpMatcher matcher : blockMatchers) {
+      if (matcher.matchesFirstPattern(line)) {
+        return matcher;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * State of the scan of a single file
+   */
+  private class FileScan {
+
+    private final String resource;
+    private DoubleRegexpMatcher currentMatcher;
+    private int fileLength;
+    private final List<LineExclusion> lineExclusions = Lists.newArrayList();
+    private LineExclusion currentLineExclusion;
+
+    FileScan(String resource) {
+      this.resource = resource;
+    }
+
+    void scan(BufferedReader reader) throws IOException {
+      int lineIndex = 0;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lineIndex++;
+        if (line.trim().length() == 0) {
+          continue;
+        }
+
+        // first check the single regexp patterns that can be used to totally exclude a file
+        Pattern pattern = findAllFilePattern(line);
+        if (pattern != null) {
+          PatternMatcher patternMatcher = exclusionPatternInitializer.getPatternMatcher();
+          synchronized (patternMatcher) {
+            patternMatcher.addPatternToExcludeResource(resource);
+          }
           // nothing more to do on this file
           LOG.debug("- Exclusion pattern '{}': every violation in this file will be ignored.", pattern);
           return;
         }
-      }
 
-      // then check the double regexps if we're still here
-      checkDoubleRegexps(line, lineIndex);
-    }
+        // then check the double regexps if we're still here
+        checkDoubleRegexps(line, lineIndex);
+      }
 
-    if (currentMatcher != null && !currentMatcher.hasSecondPattern()) {
-      // this will happen when there is a start block regexp but no end block regexp
-      endExclusion(lineIndex + 1);
-    }
+      if (currentMatcher != null && !currentMatcher.hasSecondPattern()) {
+        // this will happen when there is a start block regexp but no end block regexp
+        endExclusion(lineIndex + 1);
+      }
 
-    // now create the new line-based pattern for this file if there are exclusions
-    fileLength = lineIndex;
-    if (!lineExclusions.isEmpty()) {
-      Set<LineRange> lineRanges = convertLineExclusionsToLineRanges();
-      LOG.debug("- Line exclusions found: {}", lineRanges);
-      exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeLines(resource, lineRanges);
+      // now create the new line-based pattern for this file if there are exclusions
+      fileLength = lineIndex;
+      if (!lineExclusions.isEmpty()) {
+        Set<LineRange> lineRanges = convertLineExclusionsToLineRanges();
+        LOG.debug("- Line exclusions found: {}", lineRanges);
+        PatternMatcher patternMatcher = exclusionPatternInitializer.getPatternMatcher();
+        synchronized (patternMatcher) {
+          patternMatcher.addPatternToExcludeLines(resource, lineRanges);
+        }
+      }
     }
-  }
 
-  private Set<LineRange> convertLineExclusionsToLineRanges() {
-    Set<LineRange> lineRanges = Sets.newHashSet();
-    for (LineExclusion lineExclusion : lineExclusions) {
-      lineRanges.add(lineExclusion.toLineRange());
+    private Set<LineRange> convertLineExclusionsToLineRanges() {
+      Set<LineRange> lineRanges = Sets.newHashSet();
+      for (LineExclusion lineExclusion : lineExclusions) {
+        lineRanges.add(lineExclusion.toLineRange(fileLength));
+      }
+      return lineRanges;
     }
-    return lineRanges;
-  }
 
-  private void checkDoubleRegexps(String line, int lineIndex) {
-    if (currentMatcher == null) {
-      for (DoubleRegexpMatcher matcher : blockMatchers) {
-        if (matcher.matchesFirstPattern(line)) {
+    private void checkDoubleRegexps(String line, int lineIndex) {
+      if (currentMatcher == null) {
+        DoubleRegexpMatcher matcher = findBlockMatcher(line);
+        if (matcher != null) {
           startExclusion(lineIndex);
           currentMatcher = matcher;
-          break;
         }
-      }
-    } else {
-      if (currentMatcher.matchesSecondPattern(line)) {
-        endExclusion(lineIndex);
-        currentMatcher = null;
+      } else {
+        if (currentMatcher.matchesSecondPattern(line)) {
+          endExclusion(lineIndex);
+          currentMatcher = null;
+        }
       }
     }
-  }
 
-  private void startExclusion(int lineIndex) {
-    currentLineExclusion = new LineExclusion(lineIndex);
-    lineExclusions.add(currentLineExclusion);
-  }
+    private void startExclusion(int lineIndex) {
+      currentLineExclusion = new LineExclusion(lineIndex);
+      lineExclusions.add(currentLineExclusion);
+    }
 
-  private void endExclusion(int lineIndex) {
-    currentLineExclusion.setEnd(lineIndex);
-    currentLineExclusion = null;
+    private void endExclusion(int lineIndex) {
+      currentLineExclusion.setEnd(lineIndex);
+      currentLineExclusion = null;
+    }
   }
 
-  private class LineExclusion {
+  private static class LineExclusion {
 
     private int start;
     private int end;
@@ -166,7 +261,7 @@ public class RegexpScanner implements BatchExtension {
       this.end = end;
     }
 
-    public LineRange toLineRange() {
+    public LineRange toLineRange(int fileLength) {
       return new LineRange(start, end == -1 ? fileLength : end);
     }
 
@@ -174,10 +269,10 @@ public class RegexpScanner implements BatchExtension {
 
   private static class DoubleRegexpMatcher {
 
-    private java.util.regex.Pattern firstPattern;
-    private java.util.regex.Pattern secondPattern;
+    private Pattern firstPattern;
+    private Pattern secondPattern;
 
-    DoubleRegexpMatcher(java.util.regex.Pattern firstPattern, java.util.regex.Pattern secondPattern) {
+    DoubleRegexpMatcher(Pattern firstPattern, Pattern secondPattern) {
       this.firstPattern = firstPattern;
       this.secondPattern = secondPattern;
     }
@@ -21,6 +21,7 @@ package org.sonar.plugins.core.security;
 
 import com.google.common.collect.ImmutableSet;
 import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.Decorates;
 import org.sonar.api.batch.Decorator;
 import org.sonar.api.batch.DecoratorContext;
 import org.sonar.core.DryRunIncompatible;
@@ -32,6 +33,7 @@ import org.sonar.api.security.ResourcePermissions;
 import java.util.Set;
 
 @DryRunIncompatible
+@Decorates(qualifiers = {Qualifiers.PROJECT, Qualifiers.VIEW, Qualifiers.SUBVIEW})
 public class ApplyProjectRolesDecorator implements Decorator {
 
   private static final Set<String> QUALIFIERS = ImmutableSet.of(Qualifiers.PROJECT, Qualifiers.VIEW, Qualifiers.SUBVIEW);
@@ -30,6 +30,7 @@ import org.sonar.api.measures.Metric;
 import org.sonar.api.profiles.Alert;
 import org.sonar.api.profiles.RulesProfile;
 import org.sonar.api.resources.Project;
+import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.resources.ResourceUtils;
 import org.sonar.core.timemachine.Periods;
@@ -37,6 +38,7 @@ import org.sonar.core.timemachine.Periods;
 import java.util.List;
 import java.util.Locale;
 
+@Decorates(qualifiers = Qualifiers.PROJECT)
 public class CheckAlertThresholds implements Decorator {
 
   private static final String VARIATION_METRIC_PREFIX = "new_";
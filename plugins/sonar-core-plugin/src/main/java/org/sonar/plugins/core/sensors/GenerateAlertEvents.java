@@ -28,11 +28,13 @@ import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationManager;
 import org.sonar.api.profiles.RulesProfile;
 import org.sonar.api.resources.Project;
+import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.resources.ResourceUtils;
 
 import java.util.List;
 
+@Decorates(qualifiers = Qualifiers.PROJECT)
 public class GenerateAlertEvents implements Decorator {
 
   private final RulesProfile profile;
@@ -22,6 +22,7 @@ package org.sonar.plugins.core.sensors;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.core.DryRunIncompatible;
 import org.sonar.api.batch.Event;
+import org.sonar.api.batch.Parallelizable;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.resources.Project;
@@ -29,6 +30,7 @@ import org.sonar.api.resources.Project;
 import java.util.Iterator;
 
 @DryRunIncompatible
+@Parallelizable
 public class VersionEventsSensor implements Sensor {
 
   public boolean shouldExecuteOnProject(Project project) {
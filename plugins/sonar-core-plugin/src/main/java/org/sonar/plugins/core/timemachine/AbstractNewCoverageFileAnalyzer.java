@@ -20,8 +20,6 @@
 package org.sonar.plugins.core.timemachine;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import org.apache.commons.lang.ObjectUtils;
 import org.sonar.api.batch.*;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.Measure;
@@ -30,7 +28,7 @@ import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.resources.Scopes;
-import org.sonar.api.utils.KeyValueFormat;
+import org.sonar.api.utils.LineData;
 import org.sonar.batch.components.Period;
 import org.sonar.batch.components.TimeMachineConfiguration;
 import org.sonar.core.DryRunIncompatible;
@@ -38,13 +36,13 @@ import org.sonar.core.DryRunIncompatible;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
 
 /**
  * @since 2.7
  */
 @DryRunIncompatible
 @DependedUpon(DecoratorBarriers.END_OF_TIME_MACHINE)
+@Decorates(scopes = Scopes.FILE)
 public abstract class AbstractNewCoverageFileAnalyzer implements Decorator {
 
   private List<PeriodStruct> structs;
@@ -111,19 +109,20 @@ public abstract class AbstractNewCoverageFileAnalyzer implements Decorator {
     Measure hitsByLineMeasure = context.getMeasure(getCoverageLineHitsDataMetric());
 
     if (lastCommits != null && lastCommits.hasData() && hitsByLineMeasure != null && hitsByLineMeasure.hasData()) {
-      Map<Integer, Date> datesByLine = KeyValueFormat.parseIntDateTime(lastCommits.getData());
-      Map<Integer, Integer> hitsByLine = parseCountByLine(hitsByLineMeasure);
-      Map<Integer, Integer> conditionsByLine = parseCountByLine(context.getMeasure(getConditionsByLineMetric()));
-      Map<Integer, Integer> coveredConditionsByLine = parseCountByLine(context.getMeasure(getCoveredConditionsByLineMetric()));
+      LineData datesByLine = LineData.parseIntDateTime(lastCommits.getData());
+      LineData hitsByLine = parseCountByLine(hitsByLineMeasure);
+      LineData conditionsByLine = parseCountByLine(context.getMeasure(getConditionsByLineMetric()));
+      LineData coveredConditionsByLine = parseCountByLine(context.getMeasure(getCoveredConditionsByLineMetric()));
 
       reset();
 
-      for (Map.Entry<Integer, Integer> entry : hitsByLine.entrySet()) {
-        int lineId = entry.getKey();
-        int hits = entry.getValue();
-        int conditions = (Integer) ObjectUtils.defaultIfNull(conditionsByLine.get(lineId), 0);
-        int coveredConditions = (Integer) ObjectUtils.defaultIfNull(coveredConditionsByLine.get(lineId), 0);
-        Date date = datesByLine.get(lineId);
+      for (int index = 0; index < hitsByLine.size(); index++) {
+        int lineId = hitsByLine.line(index);
+        int hits = hitsByLine.intValue(index);
+        int conditions = conditionsByLine.getInt(lineId, 0);
+        int coveredConditions = coveredConditionsByLine.getInt(lineId, 0);
+        int dateIndex = datesByLine.indexOf(lineId);
+        Date date = dateIndex >= 0 ? new Date(datesByLine.value(dateIndex)) : null;
         for (PeriodStruct struct : structs) {
           struct.analyze(date, hits, conditions, coveredConditions);
         }
@@ -161,11 +160,11 @@ public abstract class AbstractNewCoverageFileAnalyzer implements Decorator {
     context.saveMeasure(newUncoveredConditions);
   }
 
-  private Map<Integer, Integer> parseCountByLine(Measure measure) {
+  private LineData parseCountByLine(Measure measure) {
     if (measure != null && measure.hasData()) {
-      return KeyValueFormat.parseIntInt(measure.getData());
+      return LineData.parseIntInt(measure.getData());
     }
-    return Maps.newHashMap();
+    return LineData.empty();
   }
 
   public static final class PeriodStruct {
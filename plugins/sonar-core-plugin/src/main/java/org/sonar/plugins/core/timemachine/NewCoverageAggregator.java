@@ -20,6 +20,7 @@
 package org.sonar.plugins.core.timemachine;
 
 import org.apache.commons.lang.ArrayUtils;
+import org.sonar.api.batch.Decorates;
 import org.sonar.api.batch.Decorator;
 import org.sonar.api.batch.DecoratorBarriers;
 import org.sonar.api.batch.DecoratorContext;
@@ -36,6 +37,7 @@ import java.util.Arrays;
 import java.util.List;
 
 @DependedUpon(DecoratorBarriers.END_OF_TIME_MACHINE)
+@Decorates(scopes = {Scopes.PROJECT, Scopes.DIRECTORY})
 public final class NewCoverageAggregator implements Decorator {
 
   public boolean shouldExecuteOnProject(Project project) {
@@ -38,6 +38,7 @@ import java.util.List;
 
 @DryRunIncompatible
 @DependedUpon(DecoratorBarriers.END_OF_TIME_MACHINE)
+@Decorates(scopes = {Scopes.PROJECT, Scopes.DIRECTORY})
 public class TendencyDecorator implements Decorator {
 
   public static final String PROP_DAYS_DESCRIPTION = "Number of days the tendency should be calculated on.";
@@ -19,6 +19,7 @@
  */
 package org.sonar.plugins.core.timemachine;
 
+import org.sonar.api.batch.Decorates;
 import org.sonar.api.batch.Decorator;
 import org.sonar.api.batch.DecoratorBarriers;
 import org.sonar.api.batch.DecoratorContext;
@@ -28,12 +29,14 @@ import org.sonar.api.database.model.Snapshot;
 import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.resources.ResourceUtils;
+import org.sonar.api.resources.Scopes;
 import org.sonar.batch.components.PastSnapshot;
 import org.sonar.batch.components.TimeMachineConfiguration;
 
 import java.util.List;
 
 @DependedUpon(DecoratorBarriers.END_OF_TIME_MACHINE)
+@Decorates(scopes = Scopes.PROJECT)
 public final class TimeMachineConfigurationPersister implements Decorator {
 
   private final TimeMachineConfiguration timeMachineConfiguration;
@@ -38,6 +38,7 @@ import java.util.List;
 import java.util.Map;
 
 @DependedUpon(DecoratorBarriers.END_OF_TIME_MACHINE)
+@Decorates(scopes = {Scopes.PROJECT, Scopes.DIRECTORY})
 public class VariationDecorator implements Decorator {
 
   private List<PastSnapshot> projectPastSnapshots;
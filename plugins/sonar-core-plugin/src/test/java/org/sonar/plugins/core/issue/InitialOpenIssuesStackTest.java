@@ -115,6 +115,22 @@ public class InitialOpenIssuesStackTest {
     assertThat(issueChangeDtos.get(1).getKey()).isEqualTo("CHANGE-2");
   }
 
+  @Test
+  public void select_changelog_of_many_issues() {
+    stack.addChangelog(new IssueChangeDto().setKey("CHANGE-1").setIssueKey("ISSUE-1"));
+    stack.addChangelog(new IssueChangeDto().setKey("CHANGE-2").setIssueKey("ISSUE-2"));
+    stack.addChangelog(new IssueChangeDto().setKey("CHANGE-3").setIssueKey("ISSUE-1"));
+
+    List<IssueChangeDto> issueChangeDtos = stack.selectChangelog("ISSUE-1");
+    assertThat(issueChangeDtos).hasSize(2);
+    assertThat(issueChangeDtos.get(0).getKey()).isEqualTo("CHANGE-1");
+    assertThat(issueChangeDtos.get(1).getKey()).isEqualTo("CHANGE-3");
+
+    issueChangeDtos = stack.selectChangelog("ISSUE-2");
+    assertThat(issueChangeDtos).hasSize(1);
+    assertThat(issueChangeDtos.get(0).getKey()).isEqualTo("CHANGE-2");
+  }
+
   @Test
   public void return_empty_changelog() {
     assertThat(stack.selectChangelog("ISSUE-1")).isEmpty();
@@ -101,6 +101,29 @@ public class PatternMatcherTest {
     assertThat(patternMatcher.getMatchingPattern(create(CHECKSTYLE_RULE, JAVA_FILE, 5))).isNull();
   }
 
+  @Test
+  public void shouldReturnFirstMatchingPattern() throws IOException {
+    IssuePattern onRule = createPattern("org.foo.Hello;checkstyle:MagicNumber;[15-200]");
+    IssuePattern onLines = createPattern("org.foo.Hello;*;[100-300]");
+    patternMatcher.addPatternForComponent(JAVA_FILE, onRule);
+    patternMatcher.addPatternForComponent(JAVA_FILE, onLines);
+
+    assertThat(patternMatcher.getMatchingPattern(create(CHECKSTYLE_RULE, JAVA_FILE, 150)).getLineRanges()).containsOnly(new LineRange(15, 200));
+    assertThat(patternMatcher.getMatchingPattern(create(CHECKSTYLE_RULE, JAVA_FILE, 250)).getLineRanges()).containsOnly(new LineRange(100, 300));
+    assertThat(patternMatcher.getMatchingPattern(create(CHECKSTYLE_RULE, JAVA_FILE, 301))).isNull();
+    assertThat(patternMatcher.getMatchingPattern(create(CHECKSTYLE_RULE, JAVA_FILE, null))).isNull();
+  }
+
+  @Test
+  public void shouldMatchPatternAddedAfterFirstLookup() throws IOException {
+    patternMatcher.addPatternForComponent(JAVA_FILE, createPattern("org.foo.Hello;*;[15-200]"));
+    assertThat(patternMatcher.getMatchingPattern(create(CHECKSTYLE_RULE, JAVA_FILE, 5))).isNull();
+
+    patternMatcher.addPatternToExcludeResource(JAVA_FILE);
+    assertThat(patternMatcher.getMatchingPattern(create(CHECKSTYLE_RULE, JAVA_FILE, 5))).isNotNull();
+    assertThat(patternMatcher.getMatchingPattern(create(CHECKSTYLE_RULE, JAVA_FILE, null))).isNotNull();
+  }
+
   private Issue create(Rule rule, String component, Integer line) {
     Issue mockIssue = mock(Issue.class);
     RuleKey ruleKey = null;
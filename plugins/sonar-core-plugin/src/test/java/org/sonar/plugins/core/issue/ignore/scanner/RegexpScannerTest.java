@@ -34,8 +34,11 @@ import org.sonar.test.TestUtils;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import static com.google.common.base.Charsets.UTF_8;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -158,4 +161,53 @@ public class RegexpScannerTest {
     verifyNoMoreInteractions(patternsInitializer);
   }
 
+  @Test
+  public void shouldCombineRegexps() {
+    Pattern pattern = RegexpScanner.combine(Arrays.asList("// SONAR-OFF", "(?i)foo-off"));
+    assertThat(pattern.matcher("  // SONAR-OFF").find()).isTrue();
+    assertThat(pattern.matcher("  // FOO-OFF").find()).isTrue();
+    assertThat(pattern.matcher("  // sonar-off").find()).isFalse();
+  }
+
+  @Test
+  public void shouldNotCombineSingleRegexpOrBackReferences() {
+    assertThat(RegexpScanner.combine(Arrays.asList("// SONAR-OFF"))).isNull();
+    assertThat(RegexpScanner.combine(Arrays.asList("(a)\\1", "b"))).isNull();
+  }
+
+  @Test
+  public void shouldNotCombineUnterminatedQuote() {
+    // valid alone, but would quote the following alternatives
+    assertThat(RegexpScanner.combine(Arrays.asList("\\Q// SONAR-OFF", "foo"))).isNull();
+    assertThat(RegexpScanner.combine(Arrays.asList("\\Q// SONAR-OFF\\E", "foo"))).isNull();
+  }
+
+  @Test
+  public void shouldNotCombineCommentsMode() {
+    // the trailing comment would swallow the closing parenthesis
+    assertThat(RegexpScanner.combine(Arrays.asList("(?x)SONAR-OFF # comment", "foo"))).isNull();
+    assertThat(RegexpScanner.combine(Arrays.asList("foo", "(?ix)SONAR-OFF # comment"))).isNull();
+  }
+
+  @Test
+  public void shouldNotCombineNamedGroups() {
+    assertThat(RegexpScanner.combine(Arrays.asList("(?<tag>SONAR)-OFF", "(?<tag>FOO)-OFF"))).isNull();
+  }
+
+  @Test
+  public void shouldScanRegexpsWhichCanNotBeCombined() throws IOException {
+    IssuePattern quotedPattern = mock(IssuePattern.class);
+    when(quotedPattern.getAllFileRegexp()).thenReturn("\\Q@SONAR-IGNORE-ALL");
+    IssuePattern commentedPattern = mock(IssuePattern.class);
+    when(commentedPattern.getAllFileRegexp()).thenReturn("(?x)@FOO-IGNORE-ALL # comment");
+    when(patternsInitializer.getAllFilePatterns()).thenReturn(Arrays.asList(commentedPattern, quotedPattern));
+    regexpScanner = new RegexpScanner(patternsInitializer);
+
+    regexpScanner.scan(javaFile, TestUtils.getResource(getClass(), "file-with-single-regexp.txt"), UTF_8);
+
+    verify(patternsInitializer).getPatternMatcher();
+    verify(patternMatcher, times(1)).addPatternToExcludeResource(javaFile);
+    verifyNoMoreInteractions(patternMatcher);
+  }
+
 }
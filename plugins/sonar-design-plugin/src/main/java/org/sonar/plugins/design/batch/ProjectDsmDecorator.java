@@ -20,15 +20,18 @@
 package org.sonar.plugins.design.batch;
 
 import com.google.common.collect.Lists;
+import org.sonar.api.batch.Decorates;
 import org.sonar.api.batch.Decorator;
 import org.sonar.api.batch.DecoratorContext;
 import org.sonar.api.batch.SonarIndex;
+import org.sonar.api.design.Dependency;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.PersistenceMode;
 import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.resources.ResourceUtils;
+import org.sonar.api.resources.Scopes;
 import org.sonar.graph.*;
 
 import java.util.Collection;
@@ -39,6 +42,7 @@ import java.util.Set;
  * For performance reasons, this decorator is currently limited to matrix between modules.
  * Squid is optimized for cycle detections (better hashCode and equals methods of SourceCode classes than Resource).
  */
+@Decorates(scopes = Scopes.PROJECT)
 public class ProjectDsmDecorator implements Decorator {
 
   // hack as long as DecoratorContext does not implement SonarIndex
@@ -70,13 +74,14 @@ public class ProjectDsmDecorator implements Decorator {
   }
 
   private Dsm<Resource> getDsm(Collection<Resource> subProjects) {
-    CycleDetector<Resource> cycleDetector = new CycleDetector<Resource>(index, subProjects);
+    IndexedDirectedGraph<Resource, Dependency> graph = IndexedDirectedGraph.copyOf(index, subProjects);
+    CycleDetector<Resource> cycleDetector = new CycleDetector<Resource>(graph, subProjects);
     Set<Cycle> cycles = cycleDetector.getCycles();
 
     MinimumFeedbackEdgeSetSolver solver = new MinimumFeedbackEdgeSetSolver(cycles);
     Set<Edge> feedbackEdges = solver.getEdges();
 
-    Dsm<Resource> dsm = new Dsm<Resource>(index, subProjects, feedbackEdges);
+    Dsm<Resource> dsm = new Dsm<Resource>(graph, subProjects, feedbackEdges);
     DsmTopologicalSorter.sort(dsm);
     return dsm;
   }
@@ -21,10 +21,13 @@ package org.sonar.batch;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.SetMultimap;
+import org.apache.commons.lang.ArrayUtils;
 import org.sonar.api.batch.BatchExtensionDictionnary;
+import org.sonar.api.batch.Decorates;
 import org.sonar.api.batch.Decorator;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.resources.Project;
+import org.sonar.api.utils.AnnotationUtils;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -50,6 +53,26 @@ public final class DecoratorsSelector {
     return batchExtDictionnary.sort(decorators);
   }
 
+  /**
+   * Keeps the decorators that apply to the resources of the given scope and qualifier, without changing their order.
+   *
+   * @see Decorates
+   */
+  public static List<Decorator> select(Collection<Decorator> decorators, String scope, String qualifier) {
+    List<Decorator> result = new ArrayList<Decorator>();
+    for (Decorator decorator : decorators) {
+      Decorates decorates = AnnotationUtils.getAnnotation(decorator, Decorates.class);
+      if (decorates == null || (matches(decorates.scopes(), scope) && matches(decorates.qualifiers(), qualifier))) {
+        result.add(decorator);
+      }
+    }
+    return result;
+  }
+
+  private static boolean matches(String[] accepted, String value) {
+    return accepted.length == 0 || ArrayUtils.contains(accepted, value);
+  }
+
   private SetMultimap<Metric, Decorator> getDecoratorsByMetric(Collection<Decorator> pluginDecorators) {
     SetMultimap<Metric, Decorator> decoratorsByGeneratedMetric = HashMultimap.create();
     for (Decorator decorator : pluginDecorators) {
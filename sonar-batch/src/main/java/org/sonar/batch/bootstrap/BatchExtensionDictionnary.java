@@ -20,14 +20,20 @@
 package org.sonar.batch.bootstrap;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.apache.commons.lang.ClassUtils;
 import org.sonar.api.BatchExtension;
 import org.sonar.api.batch.CheckProject;
 import org.sonar.api.platform.ComponentContainer;
 import org.sonar.api.resources.Project;
+import org.sonar.api.utils.dag.DirectAcyclicGraph;
+import org.sonar.api.utils.dag.Node;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @since 2.6
@@ -46,6 +52,35 @@ public class BatchExtensionDictionnary extends org.sonar.api.batch.BatchExtensio
     return result;
   }
 
+  /**
+   * For each of the given extensions, the extensions of the same collection that must be executed before it.
+   * Dependencies are transitive and can be declared through metrics, phases or any other object.
+   *
+   * @since 4.2
+   */
+  public <T> Map<T, Set<T>> getTransitiveDependencies(Collection<T> extensions) {
+    DirectAcyclicGraph dag = newGraph(extensions);
+    Map<T, Set<T>> result = Maps.newHashMap();
+    for (T extension : extensions) {
+      Set<T> dependencies = Sets.newHashSet();
+      collectDependencies(dag.add(extension), extensions, dependencies, Sets.<Node>newHashSet());
+      result.put(extension, dependencies);
+    }
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> void collectDependencies(Node node, Collection<T> extensions, Set<T> dependencies, Set<Node> visited) {
+    for (Node dependency : node.getDependencies()) {
+      if (visited.add(dependency)) {
+        if (extensions.contains(dependency.getObject())) {
+          dependencies.add((T) dependency.getObject());
+        }
+        collectDependencies(dependency, extensions, dependencies, visited);
+      }
+    }
+  }
+
   private <T> List<T> getFilteredExtensions(Class<T> type, Project project, ExtensionMatcher matcher) {
     List<T> result = Lists.newArrayList();
     for (BatchExtension extension : getExtensions()) {
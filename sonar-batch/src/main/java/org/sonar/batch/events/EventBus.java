@@ -19,21 +19,58 @@
  */
 package org.sonar.batch.events;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang.ClassUtils;
 import org.sonar.api.batch.events.EventHandler;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Dispatches {@link BatchEvent}s. Eases decoupling by allowing objects to interact without having direct dependencies upon one another, and
  * without requiring event sources to deal with maintaining handler lists.
+ * <p/>
+ * Handlers are registered at construction, so the handlers of each type are computed once. Sources of frequent events should
+ * check {@link #hasHandlers(Class)} before creating them.
  */
 public class EventBus {
 
-  private EventHandler[] registeredHandlers;
+  private static final EventHandler[] NO_HANDLERS = new EventHandler[0];
+
+  private final Map<Class, Dispatch> dispatchByType;
+  private final AtomicLong eventsWithoutHandlers = new AtomicLong();
 
   public EventBus(EventHandler[] handlers) {
-    this.registeredHandlers = handlers;
+    Map<Class, List<EventHandler>> handlersByType = Maps.newLinkedHashMap();
+    for (EventHandler handler : handlers) {
+      for (Class type : handlerTypes(handler.getClass())) {
+        List<EventHandler> handlersOfType = handlersByType.get(type);
+        if (handlersOfType == null) {
+          handlersOfType = Lists.newArrayList();
+          handlersByType.put(type, handlersOfType);
+        }
+        handlersOfType.add(handler);
+      }
+    }
+    ImmutableMap.Builder<Class, Dispatch> builder = ImmutableMap.builder();
+    for (Map.Entry<Class, List<EventHandler>> entry : handlersByType.entrySet()) {
+      builder.put(entry.getKey(), new Dispatch(entry.getValue().toArray(new EventHandler[entry.getValue().size()])));
+    }
+    this.dispatchByType = builder.build();
+  }
+
+  /**
+   * All the classes and interfaces a handler can be registered for.
+   */
+  private static List<Class> handlerTypes(Class handlerClass) {
+    List<Class> types = Lists.newArrayList();
+    types.add(handlerClass);
+    types.addAll(ClassUtils.getAllSuperclasses(handlerClass));
+    types.addAll(ClassUtils.getAllInterfaces(handlerClass));
+    return types;
   }
 
   /**
@@ -44,20 +81,56 @@ public class EventBus {
   }
 
   private void doFireEvent(BatchEvent event) {
-    List<EventHandler> handlers = getDispatchList(event.getType());
-    for (EventHandler handler : handlers) {
-      event.dispatch(handler);
+    Dispatch dispatch = dispatchByType.get(event.getType());
+    if (dispatch == null) {
+      eventsWithoutHandlers.incrementAndGet();
+    } else {
+      dispatch.count.incrementAndGet();
+      for (EventHandler handler : dispatch.handlers) {
+        event.dispatch(handler);
+      }
     }
   }
 
-  private List<EventHandler> getDispatchList(Class<? extends EventHandler> handlerType) {
-    List<EventHandler> result = Lists.newArrayList();
-    for (EventHandler handler : registeredHandlers) {
-      if (handlerType.isAssignableFrom(handler.getClass())) {
-        result.add(handler);
-      }
-    }
-    return result;
+  /**
+   * Whether events of the given handler type are dispatched to at least one handler.
+   *
+   * @since 4.2
+   */
+  public boolean hasHandlers(Class<? extends EventHandler> handlerType) {
+    return dispatchByType.containsKey(handlerType);
+  }
+
+  /**
+   * Number of events of the given handler type that have been fired to at least one handler.
+   *
+   * @since 4.2
+   */
+  public long getEventCount(Class<? extends EventHandler> handlerType) {
+    Dispatch dispatch = dispatchByType.get(handlerType);
+    return dispatch == null ? 0L : dispatch.count.get();
+  }
+
+  /**
+   * Number of events that have been fired while no handler was registered for their type.
+   *
+   * @since 4.2
+   */
+  public long getEventCountWithoutHandlers() {
+    return eventsWithoutHandlers.get();
+  }
+
+  EventHandler[] getHandlers(Class<? extends EventHandler> handlerType) {
+    Dispatch dispatch = dispatchByType.get(handlerType);
+    return dispatch == null ? NO_HANDLERS : dispatch.handlers;
   }
 
+  private static class Dispatch {
+    private final EventHandler[] handlers;
+    private final AtomicLong count = new AtomicLong();
+
+    Dispatch(EventHandler[] handlers) {
+      this.handlers = handlers;
+    }
+  }
 }
@@ -60,6 +60,7 @@ public final class DefaultPersistenceManager implements PersistenceManager {
   }
 
   public void dump() {
+    resourcePersister.flush();
     measurePersister.dump();
   }
 
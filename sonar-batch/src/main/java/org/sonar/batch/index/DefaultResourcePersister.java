@@ -29,9 +29,11 @@ import org.sonar.api.resources.*;
 import org.sonar.api.security.ResourcePermissions;
 import org.sonar.api.utils.SonarException;
 
+import javax.persistence.EntityManager;
 import javax.persistence.NonUniqueResultException;
 import javax.persistence.Query;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -51,6 +53,14 @@ public final class DefaultResourcePersister implements ResourcePersister {
   private final SnapshotCache snapshotCache;
   private final ResourceCache resourceCache;
 
+  /**
+   * Existing resources of the module being analyzed, loaded at once when the first file or directory
+   * is saved. Entries are removed as soon as they are used.
+   */
+  private Project loadedModule;
+  private final Map<String, ResourceModel> modelsByKey = Maps.newHashMap();
+  private int unflushed = 0;
+
   public DefaultResourcePersister(DatabaseSession session, ResourcePermissions permissions, SnapshotCache snapshotCache, ResourceCache resourceCache) {
     this.session = session;
     this.permissions = permissions;
@@ -201,23 +211,111 @@ public final class DefaultResourcePersister implements ResourcePersister {
   }
 
   /**
-   * Everything except project and library
+   * Everything except project and library. Resources and snapshots are not committed one by one, but
+   * committed together by {@link #flush()}.
    */
   private Snapshot persistFileOrDirectory(Project project, Resource resource, Resource parentReference) {
-    ResourceModel model = findOrCreateModel(resource);
     Snapshot projectSnapshot = snapshotsByResource.get(project);
-    model.setRootId(projectSnapshot.getResourceId());
-    model = session.save(model);
+    ResourceModel model = saveModel(project, resource, projectSnapshot.getResourceId());
     resource.setId(model.getId());
 
     Snapshot parentSnapshot = (Snapshot) ObjectUtils.defaultIfNull(getSnapshot(parentReference), projectSnapshot);
     Snapshot snapshot = new Snapshot(model, parentSnapshot);
     snapshot.setBuildDate(new Date());
-    snapshot = session.save(snapshot);
-    session.commit();
+    session.saveWithoutFlush(snapshot);
+    flushIfNeeded();
     return snapshot;
   }
 
+  private ResourceModel saveModel(Project project, Resource resource, Integer rootId) {
+    if (!resource.getEffectiveKey().startsWith(keyPrefix(project))) {
+      // not expected, the key of a component is prefixed by the key of its module
+      ResourceModel model = findOrCreateModel(resource);
+      model.setRootId(rootId);
+      session.saveWithoutFlush(model);
+      flushIfNeeded();
+      return model;
+    }
+
+    ResourceModel model = loadModels(project, rootId).remove(resource.getEffectiveKey());
+    if (model == null) {
+      model = createModel(resource);
+      model.setRootId(rootId);
+      session.saveWithoutFlush(model);
+      flushIfNeeded();
+    } else {
+      List<Object> columns = updatableColumns(model);
+      mergeModel(model, resource);
+      model.setRootId(rootId);
+      if (!columns.equals(updatableColumns(model))) {
+        // the preloaded model may have been detached by a commit
+        model = (ResourceModel) session.merge(model);
+      }
+    }
+    return model;
+  }
+
+  /**
+   * Files and directories of a module are saved with the id of the module as root id, so the resources
+   * of sub-modules are not loaded with the resources of their parent module.
+   */
+  private Map<String, ResourceModel> loadModels(Project project, Integer rootId) {
+    if (project != loadedModule) {
+      modelsByKey.clear();
+      String keyPrefix = keyPrefix(project);
+      Query query = session.createQuery("from " + ResourceModel.class.getSimpleName() + " r WHERE r.rootId=:rootId AND r.key LIKE :keyPrefix ESCAPE '/'");
+      query.setParameter("rootId", rootId);
+      query.setParameter("keyPrefix", escapeLike(keyPrefix) + "%");
+      List<ResourceModel> models = query.getResultList();
+      for (ResourceModel model : models) {
+        // LIKE can be case-insensitive, depending on the database collation
+        if (model.getKey().startsWith(keyPrefix) && modelsByKey.put(model.getKey(), model) != null) {
+          throw new SonarException("The resource '" + model.getKey() + "' is duplicated in database.");
+        }
+      }
+      loadedModule = project;
+    }
+    return modelsByKey;
+  }
+
+  private static String keyPrefix(Project project) {
+    return project.getKey() + ":";
+  }
+
+  /**
+   * Characters '_' and '%' of keys must not be interpreted as wildcards
+   */
+  static String escapeLike(String s) {
+    return s.replace("/", "//").replace("%", "/%").replace("_", "/_");
+  }
+
+  private static List<Object> updatableColumns(ResourceModel model) {
+    return Arrays.<Object>asList(model.getName(), model.getLongName(), model.getDescription(), model.getEnabled(), model.getScope(),
+      model.getQualifier(), model.getLanguageKey(), model.getRootId());
+  }
+
+  /**
+   * Sends pending inserts to database every {@link DatabaseSession#BATCH_SIZE} saves, without committing. The
+   * persistence context is cleared so that it does not grow with the number of files.
+   * <p/>
+   * Inserts are grouped in JDBC batches only on Oracle and PostgreSQL, where ids are generated by sequences.
+   * On databases with identity columns (MySQL, H2, MS SQL Server), each row is inserted as soon as it is saved.
+   */
+  private void flushIfNeeded() {
+    unflushed++;
+    if (unflushed >= DatabaseSession.BATCH_SIZE) {
+      EntityManager entityManager = session.getEntityManager();
+      entityManager.flush();
+      entityManager.clear();
+      unflushed = 0;
+    }
+  }
+
+  public void flush() {
+    session.commit();
+    unflushed = 0;
+  }
+
   public Snapshot getLastSnapshot(Snapshot snapshot, boolean onlyOlder) {
     String hql = "SELECT s FROM " + Snapshot.class.getSimpleName() + " s WHERE s.last=:last AND s.resourceId=:resourceId";
     if (onlyOlder) {
@@ -233,6 +331,10 @@ public final class DefaultResourcePersister implements ResourcePersister {
   }
 
   public void clear() {
+    flush();
+    loadedModule = null;
+    modelsByKey.clear();
+
     // we keep cache of projects
     for (Iterator<Map.Entry<Resource, Snapshot>> it = snapshotsByResource.entrySet().iterator(); it.hasNext();) {
       Map.Entry<Resource, Snapshot> entry = it.next();
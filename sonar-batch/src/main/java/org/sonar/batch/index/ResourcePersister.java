@@ -51,5 +51,14 @@ public interface ResourcePersister {
    */
   Snapshot getLastSnapshot(Snapshot snapshot, boolean onlyOlder);
 
+  /**
+   * Commits the files and directories that have been persisted since last call.
+   * <p/>
+   * It is called when the measures of the module are saved, after sensors and decorators. Until then the files,
+   * directories and their snapshots are not committed, so they are not visible from other connections, for example
+   * to the MyBatis mappers used by sensors.
+   */
+  void flush();
+
   void clear();
 }
@@ -26,6 +26,8 @@ import org.sonar.api.database.model.SnapshotSource;
 import org.sonar.api.resources.DuplicatedSourceException;
 import org.sonar.api.resources.Resource;
 
+import javax.persistence.EntityManager;
+
 import java.util.Set;
 
 public final class SourcePersister {
@@ -33,6 +35,7 @@ public final class SourcePersister {
   private DatabaseSession session;
   private Set<Integer> savedSnapshotIds = Sets.newHashSet();
   private ResourcePersister resourcePersister;
+  private int unflushed = 0;
 
   public SourcePersister(DatabaseSession session, ResourcePersister resourcePersister) {
     this.session = session;
@@ -44,9 +47,25 @@ public final class SourcePersister {
     if (isCached(snapshot)) {
       throw new DuplicatedSourceException(resource);
     }
-    session.save(new SnapshotSource(snapshot.getId(), source));
-    session.commit();
+    // committed by batches, see #clear()
+    session.saveWithoutFlush(new SnapshotSource(snapshot.getId(), source));
     addToCache(snapshot);
+    flushIfNeeded();
+  }
+
+  /**
+   * Inserts are grouped in JDBC batches only when ids are generated by sequences (Oracle, PostgreSQL).
+   * Elsewhere each source is inserted as soon as it is saved, and only the commits are grouped.
+   */
+  private void flushIfNeeded() {
+    unflushed++;
+    if (unflushed >= DatabaseSession.BATCH_SIZE) {
+      EntityManager entityManager = session.getEntityManager();
+      entityManager.flush();
+      // sources are never read back from the persistence context
+      entityManager.clear();
+      unflushed = 0;
+    }
   }
 
   public String getSource(Resource resource) {
@@ -67,6 +86,8 @@ public final class SourcePersister {
   }
 
   public void clear() {
+    session.commit();
+    unflushed = 0;
     savedSnapshotIds.clear();
   }
 }
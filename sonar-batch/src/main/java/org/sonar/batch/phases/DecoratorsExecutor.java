@@ -22,11 +22,15 @@ package org.sonar.batch.phases;
 import org.sonar.core.measure.MeasurementFilters;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonar.api.BatchComponent;
 import org.sonar.api.batch.BatchExtensionDictionnary;
 import org.sonar.api.batch.Decorator;
 import org.sonar.api.batch.DecoratorContext;
 import org.sonar.api.batch.SonarIndex;
+import org.sonar.api.batch.events.DecoratorExecutionHandler;
 import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.utils.MessageException;
@@ -37,14 +41,20 @@ import org.sonar.batch.events.EventBus;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public class DecoratorsExecutor implements BatchComponent {
 
+  private static final Logger LOG = LoggerFactory.getLogger(DecoratorsExecutor.class);
+
   private DecoratorsSelector decoratorsSelector;
   private SonarIndex index;
   private EventBus eventBus;
   private Project project;
   private MeasurementFilters measurementFilters;
+  private Map<String, List<Decorator>> decoratorsByScopeAndQualifier = Maps.newHashMap();
+  // events are fired for each decorator on each resource, so they are not even created if nobody listens to them
+  private boolean fireDecoratorEvents = false;
 
   public DecoratorsExecutor(BatchExtensionDictionnary batchExtDictionnary,
       Project project, SonarIndex index, EventBus eventBus, MeasurementFilters measurementFilters) {
@@ -57,9 +67,15 @@ public class DecoratorsExecutor implements BatchComponent {
 
   public void execute() {
     Collection<Decorator> decorators = decoratorsSelector.select(project);
+    decoratorsByScopeAndQualifier.clear();
+    fireDecoratorEvents = eventBus.hasHandlers(DecoratorExecutionHandler.class);
     eventBus.fireEvent(new DecoratorsPhaseEvent(Lists.newArrayList(decorators), true));
     decorateResource(project, decorators, true);
     eventBus.fireEvent(new DecoratorsPhaseEvent(Lists.newArrayList(decorators), false));
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Events: {} decorator executions, {} without handler",
+        eventBus.getEventCount(DecoratorExecutionHandler.class), eventBus.getEventCountWithoutHandlers());
+    }
   }
 
   DecoratorContext decorateResource(Resource resource, Collection<Decorator> decorators, boolean executeDecorators) {
@@ -72,18 +88,35 @@ public class DecoratorsExecutor implements BatchComponent {
 
     DefaultDecoratorContext context = new DefaultDecoratorContext(resource, index, childrenContexts, measurementFilters);
     if (executeDecorators) {
-      for (Decorator decorator : decorators) {
+      for (Decorator decorator : selectDecorators(decorators, resource)) {
         executeDecorator(decorator, context, resource);
       }
     }
     return context;
   }
 
+  /**
+   * Decorators are filtered only once for all the resources sharing the same scope and qualifier
+   */
+  private List<Decorator> selectDecorators(Collection<Decorator> decorators, Resource resource) {
+    String key = resource.getScope() + ":" + resource.getQualifier();
+    List<Decorator> selected = decoratorsByScopeAndQualifier.get(key);
+    if (selected == null) {
+      selected = DecoratorsSelector.select(decorators, resource.getScope(), resource.getQualifier());
+      decoratorsByScopeAndQualifier.put(key, selected);
+    }
+    return selected;
+  }
+
   void executeDecorator(Decorator decorator, DefaultDecoratorContext context, Resource resource) {
     try {
-      eventBus.fireEvent(new DecoratorExecutionEvent(decorator, true));
+      if (fireDecoratorEvents) {
+        eventBus.fireEvent(new DecoratorExecutionEvent(decorator, true));
+      }
       decorator.decorate(resource, context);
-      eventBus.fireEvent(new DecoratorExecutionEvent(decorator, false));
+      if (fireDecoratorEvents) {
+        eventBus.fireEvent(new DecoratorExecutionEvent(decorator, false));
+      }
 
     } catch (MessageException e) {
       throw e;
@@ -0,0 +1,102 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.phases;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.lang.SystemUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.Decorator;
+import org.sonar.api.batch.events.DecoratorExecutionHandler;
+import org.sonar.api.batch.events.DecoratorsPhaseHandler;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Logs the time spent in each decorator. Decorator execution events are fired for each decorator on each resource,
+ * so this handler is registered only when its output is logged.
+ *
+ * @since 4.2
+ */
+public class DecoratorsTimeProfiler implements DecoratorExecutionHandler, DecoratorsPhaseHandler {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DecoratorsTimeProfiler.class);
+
+  private DecoratorsProfiler decoratorsProfiler = new DecoratorsProfiler();
+
+  public static boolean isEnabled() {
+    return LOG.isDebugEnabled();
+  }
+
+  public void onDecoratorExecution(DecoratorExecutionEvent event) {
+    if (event.isStart()) {
+      decoratorsProfiler.start(event.getDecorator());
+    } else {
+      decoratorsProfiler.stop();
+    }
+  }
+
+  public void onDecoratorsPhase(DecoratorsPhaseEvent event) {
+    if (event.isEnd()) {
+      decoratorsProfiler.log();
+    }
+  }
+
+  static class DecoratorsProfiler {
+    List<Decorator> decorators = Lists.newArrayList();
+    Map<Decorator, Long> durations = new IdentityHashMap<Decorator, Long>();
+    long startTime;
+    Decorator currentDecorator;
+
+    DecoratorsProfiler() {
+    }
+
+    void start(Decorator decorator) {
+      this.startTime = System.currentTimeMillis();
+      this.currentDecorator = decorator;
+    }
+
+    void stop() {
+      final Long cumulatedDuration;
+      if (durations.containsKey(currentDecorator)) {
+        cumulatedDuration = durations.get(currentDecorator);
+      } else {
+        decorators.add(currentDecorator);
+        cumulatedDuration = 0L;
+      }
+      durations.put(currentDecorator, cumulatedDuration + (System.currentTimeMillis() - startTime));
+    }
+
+    void log() {
+      LOG.debug(getMessage());
+    }
+
+    String getMessage() {
+      StringBuilder sb = new StringBuilder("Decorator time:").append(SystemUtils.LINE_SEPARATOR);
+      for (Decorator decorator : decorators) {
+        sb.append("\t").append(decorator.toString()).append(": ").append(durations.get(decorator)).append("ms")
+            .append(SystemUtils.LINE_SEPARATOR);
+      }
+      return sb.toString();
+    }
+  }
+}
@@ -24,6 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.resources.Project;
+import org.sonar.api.utils.WildcardPattern;
 import org.sonar.batch.events.BatchStepEvent;
 import org.sonar.batch.events.EventBus;
 import org.sonar.batch.index.DefaultIndex;
@@ -134,6 +135,9 @@ public final class PhaseExecutor {
       }
     }
     cleanMemory();
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("Wildcard pattern cache: {} hits, {} misses", WildcardPattern.cacheHits(), WildcardPattern.cacheMisses());
+    }
     eventBus.fireEvent(new ProjectAnalysisEvent(module, false));
   }
 
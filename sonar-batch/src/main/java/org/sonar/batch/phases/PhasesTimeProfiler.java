@@ -19,98 +19,58 @@
  */
 package org.sonar.batch.phases;
 
-import com.google.common.collect.Lists;
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.SystemUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.sonar.api.batch.Decorator;
-import org.sonar.api.batch.events.DecoratorExecutionHandler;
+import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.events.DecoratorsPhaseHandler;
 import org.sonar.api.batch.events.SensorExecutionHandler;
 import org.sonar.api.batch.events.SensorsPhaseHandler;
 import org.sonar.api.utils.TimeProfiler;
 
 import java.util.IdentityHashMap;
-import java.util.List;
 import java.util.Map;
 
-public class PhasesTimeProfiler implements SensorExecutionHandler, DecoratorExecutionHandler, DecoratorsPhaseHandler, SensorsPhaseHandler {
+public class PhasesTimeProfiler implements SensorExecutionHandler, DecoratorsPhaseHandler, SensorsPhaseHandler {
 
   private static final Logger LOG = LoggerFactory.getLogger(PhasesTimeProfiler.class);
 
-  private TimeProfiler profiler = new TimeProfiler(LOG);
-  private DecoratorsProfiler decoratorsProfiler = new DecoratorsProfiler();
+  private final Logger logger;
+  // Parallelizable sensors can be executed at the same time, so each sensor has its own profiler
+  private final Map<Sensor, TimeProfiler> sensorProfilers = new IdentityHashMap<Sensor, TimeProfiler>();
 
-  public void onSensorsPhase(SensorsPhaseEvent event) {
-    if (event.isStart()) {
-      LOG.debug("Sensors : {}", StringUtils.join(event.getSensors(), " -> "));
-    }
+  public PhasesTimeProfiler() {
+    this(LOG);
   }
 
-  public void onSensorExecution(SensorExecutionEvent event) {
-    if (event.isStart()) {
-      profiler.start("Sensor " + event.getSensor());
-    } else {
-      profiler.stop();
-    }
+  PhasesTimeProfiler(Logger logger) {
+    this.logger = logger;
   }
 
-  public void onDecoratorExecution(DecoratorExecutionEvent event) {
+  public void onSensorsPhase(SensorsPhaseEvent event) {
     if (event.isStart()) {
-      decoratorsProfiler.start(event.getDecorator());
-    } else {
-      decoratorsProfiler.stop();
+      logger.debug("Sensors : {}", StringUtils.join(event.getSensors(), " -> "));
     }
   }
 
-  public void onDecoratorsPhase(DecoratorsPhaseEvent event) {
+  public void onSensorExecution(SensorExecutionEvent event) {
+    Sensor sensor = event.getSensor();
     if (event.isStart()) {
-      LOG.info("Execute decorators...");
-      if (LOG.isDebugEnabled()) {
-        LOG.debug("Decorators: {}", StringUtils.join(event.getDecorators(), " -> "));
-      }
+      sensorProfilers.put(sensor, new TimeProfiler(logger).start("Sensor " + sensor));
     } else {
-      decoratorsProfiler.log();
-    }
-  }
-
-  static class DecoratorsProfiler {
-    List<Decorator> decorators = Lists.newArrayList();
-    Map<Decorator, Long> durations = new IdentityHashMap<Decorator, Long>();
-    long startTime;
-    Decorator currentDecorator;
-
-    DecoratorsProfiler() {
-    }
-
-    void start(Decorator decorator) {
-      this.startTime = System.currentTimeMillis();
-      this.currentDecorator = decorator;
-    }
-
-    void stop() {
-      final Long cumulatedDuration;
-      if (durations.containsKey(currentDecorator)) {
-        cumulatedDuration = durations.get(currentDecorator);
-      } else {
-        decorators.add(currentDecorator);
-        cumulatedDuration = 0L;
+      TimeProfiler profiler = sensorProfilers.remove(sensor);
+      if (profiler != null) {
+        profiler.stop();
       }
-      durations.put(currentDecorator, cumulatedDuration + (System.currentTimeMillis() - startTime));
-    }
-
-    void log() {
-      LOG.debug(getMessage());
     }
+  }
 
-    String getMessage() {
-      StringBuilder sb = new StringBuilder("Decorator time:").append(SystemUtils.LINE_SEPARATOR);
-      for (Decorator decorator : decorators) {
-        sb.append("\t").append(decorator.toString()).append(": ").append(durations.get(decorator)).append("ms")
-            .append(SystemUtils.LINE_SEPARATOR);
+  public void onDecoratorsPhase(DecoratorsPhaseEvent event) {
+    if (event.isStart()) {
+      logger.info("Execute decorators...");
+      if (logger.isDebugEnabled()) {
+        logger.debug("Decorators: {}", StringUtils.join(event.getDecorators(), " -> "));
       }
-      return sb.toString();
     }
   }
 
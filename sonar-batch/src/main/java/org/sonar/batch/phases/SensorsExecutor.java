@@ -19,26 +19,40 @@
  */
 package org.sonar.batch.phases;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.BatchComponent;
+import org.sonar.api.batch.Parallelizable;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.batch.maven.DependsUponMavenPlugin;
 import org.sonar.api.batch.maven.MavenPluginHandler;
 import org.sonar.api.database.DatabaseSession;
 import org.sonar.api.resources.Project;
+import org.sonar.api.utils.AnnotationUtils;
 import org.sonar.api.utils.TimeProfiler;
 import org.sonar.batch.bootstrap.BatchExtensionDictionnary;
 import org.sonar.batch.events.EventBus;
 import org.sonar.batch.scan.filesystem.DefaultModuleFileSystem;
 import org.sonar.batch.scan.maven.MavenPluginExecutor;
 
-import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class SensorsExecutor implements BatchComponent {
   private static final Logger LOG = LoggerFactory.getLogger(SensorsExecutor.class);
+  private static final int THREADS = Runtime.getRuntime().availableProcessors();
 
   private MavenPluginExecutor mavenExecutor;
   private EventBus eventBus;
@@ -60,20 +74,109 @@ public class SensorsExecutor implements BatchComponent {
   }
 
   public void execute(SensorContext context) {
-    Collection<Sensor> sensors = selector.select(Sensor.class, project, true, sensorMatcher);
+    List<Sensor> sensors = Lists.newArrayList(selector.select(Sensor.class, project, true, sensorMatcher));
     eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), true));
 
+    Map<Sensor, Set<Sensor>> dependencies = null;
+    List<Sensor> group = Lists.newArrayList();
     for (Sensor sensor : sensors) {
-      // SONAR-2965 In case the sensor takes too much time we close the session to not face a timeout
-      session.commitAndClose();
+      if (isParallelizable(sensor)) {
+        if (dependencies == null) {
+          dependencies = selector.getTransitiveDependencies(sensors);
+        }
+        group.add(sensor);
+      } else {
+        executeConcurrently(group, dependencies, context);
+        group.clear();
+        executeSensor(sensor, context);
+      }
+    }
+    executeConcurrently(group, dependencies, context);
+
+    eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), false));
+  }
+
+  private void executeSensor(Sensor sensor, SensorContext context) {
+    // SONAR-2965 In case the sensor takes too much time we close the session to not face a timeout
+    session.commitAndClose();
+
+    eventBus.fireEvent(new SensorExecutionEvent(sensor, true));
+    executeMavenPlugin(sensor);
+    sensor.analyse(project, context);
+    eventBus.fireEvent(new SensorExecutionEvent(sensor, false));
+  }
+
+  private static boolean isParallelizable(Sensor sensor) {
+    // Maven plugins can not be executed concurrently
+    return AnnotationUtils.getAnnotation(sensor, Parallelizable.class) != null && !(sensor instanceof DependsUponMavenPlugin);
+  }
+
+  /**
+   * A sensor of the group is started as soon as the sensors of the group it depends upon are done. Sensors that precede
+   * the group are already executed, and sensors that follow it are executed once the whole group is done.
+   * All accesses to the context, to the database session and to the event bus are serialized on a single lock.
+   */
+  private void executeConcurrently(List<Sensor> group, Map<Sensor, Set<Sensor>> dependencies, SensorContext context) {
+    if (group.isEmpty()) {
+      return;
+    }
+    final Object lock = new Object();
+    final SensorContext synchronizedContext = new SynchronizedSensorContext(context, lock);
+    List<Sensor> pending = Lists.newLinkedList(group);
+    Set<Sensor> done = Sets.newHashSet();
+    int running = 0;
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(THREADS, group.size()));
+    try {
+      CompletionService<Sensor> completionService = new ExecutorCompletionService<Sensor>(executor);
+      while (!pending.isEmpty() || running > 0) {
+        for (Iterator<Sensor> it = pending.iterator(); it.hasNext();) {
+          final Sensor sensor = it.next();
+          if (isReady(sensor, group, dependencies, done)) {
+            it.remove();
+            running++;
+            completionService.submit(new Callable<Sensor>() {
+              public Sensor call() {
+                executeWithLock(sensor, synchronizedContext, lock);
+                return sensor;
+              }
+            });
+          }
+        }
+        done.add(completionService.take().get());
+        running--;
+      }
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted during the execution of sensors", e);
+
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static boolean isReady(Sensor sensor, List<Sensor> group, Map<Sensor, Set<Sensor>> dependencies, Set<Sensor> done) {
+    for (Sensor dependency : dependencies.get(sensor)) {
+      if (group.contains(dependency) && !done.contains(dependency)) {
+        return false;
+      }
+    }
+    return true;
+  }
 
+  private void executeWithLock(Sensor sensor, SensorContext synchronizedContext, Object lock) {
+    synchronized (lock) {
+      session.commitAndClose();
       eventBus.fireEvent(new SensorExecutionEvent(sensor, true));
-      executeMavenPlugin(sensor);
-      sensor.analyse(project, context);
+    }
+    sensor.analyse(project, synchronizedContext);
+    synchronized (lock) {
       eventBus.fireEvent(new SensorExecutionEvent(sensor, false));
     }
-
-    eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), false));
   }
 
   private void executeMavenPlugin(Sensor sensor) {
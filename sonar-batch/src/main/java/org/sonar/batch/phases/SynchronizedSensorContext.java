@@ -0,0 +1,223 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.phases;
+
+import org.sonar.api.batch.Event;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.design.Dependency;
+import org.sonar.api.measures.Measure;
+import org.sonar.api.measures.MeasuresFilter;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.resources.ProjectLink;
+import org.sonar.api.resources.Resource;
+import org.sonar.api.rules.Violation;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Serializes the calls to a {@link SensorContext} shared by sensors executed concurrently.
+ */
+class SynchronizedSensorContext implements SensorContext {
+
+  private final SensorContext context;
+  private final Object lock;
+
+  SynchronizedSensorContext(SensorContext context, Object lock) {
+    this.context = context;
+    this.lock = lock;
+  }
+
+  public boolean index(Resource resource) {
+    synchronized (lock) {
+      return context.index(resource);
+    }
+  }
+
+  public boolean index(Resource resource, Resource parentReference) {
+    synchronized (lock) {
+      return context.index(resource, parentReference);
+    }
+  }
+
+  public boolean isExcluded(Resource reference) {
+    synchronized (lock) {
+      return context.isExcluded(reference);
+    }
+  }
+
+  public boolean isIndexed(Resource reference, boolean acceptExcluded) {
+    synchronized (lock) {
+      return context.isIndexed(reference, acceptExcluded);
+    }
+  }
+
+  public <R extends Resource> R getResource(R reference) {
+    synchronized (lock) {
+      return context.getResource(reference);
+    }
+  }
+
+  public Resource getParent(Resource reference) {
+    synchronized (lock) {
+      return context.getParent(reference);
+    }
+  }
+
+  public Collection<Resource> getChildren(Resource reference) {
+    synchronized (lock) {
+      return context.getChildren(reference);
+    }
+  }
+
+  public Measure getMeasure(Metric metric) {
+    synchronized (lock) {
+      return context.getMeasure(metric);
+    }
+  }
+
+  public <M> M getMeasures(MeasuresFilter<M> filter) {
+    synchronized (lock) {
+      return context.getMeasures(filter);
+    }
+  }
+
+  public Measure saveMeasure(Measure measure) {
+    synchronized (lock) {
+      return context.saveMeasure(measure);
+    }
+  }
+
+  public Measure saveMeasure(Metric metric, Double value) {
+    synchronized (lock) {
+      return context.saveMeasure(metric, value);
+    }
+  }
+
+  public Measure getMeasure(Resource resource, Metric metric) {
+    synchronized (lock) {
+      return context.getMeasure(resource, metric);
+    }
+  }
+
+  public String saveResource(Resource resource) {
+    synchronized (lock) {
+      return context.saveResource(resource);
+    }
+  }
+
+  public <M> M getMeasures(Resource resource, MeasuresFilter<M> filter) {
+    synchronized (lock) {
+      return context.getMeasures(resource, filter);
+    }
+  }
+
+  public Measure saveMeasure(Resource resource, Metric metric, Double value) {
+    synchronized (lock) {
+      return context.saveMeasure(resource, metric, value);
+    }
+  }
+
+  public Measure saveMeasure(Resource resource, Measure measure) {
+    synchronized (lock) {
+      return context.saveMeasure(resource, measure);
+    }
+  }
+
+  public void saveViolation(Violation violation, boolean force) {
+    synchronized (lock) {
+      context.saveViolation(violation, force);
+    }
+  }
+
+  public void saveViolation(Violation violation) {
+    synchronized (lock) {
+      context.saveViolation(violation);
+    }
+  }
+
+  public void saveViolations(Collection<Violation> violations) {
+    synchronized (lock) {
+      context.saveViolations(violations);
+    }
+  }
+
+  public Dependency saveDependency(Dependency dependency) {
+    synchronized (lock) {
+      return context.saveDependency(dependency);
+    }
+  }
+
+  public Set<Dependency> getDependencies() {
+    synchronized (lock) {
+      return context.getDependencies();
+    }
+  }
+
+  public Collection<Dependency> getIncomingDependencies(Resource to) {
+    synchronized (lock) {
+      return context.getIncomingDependencies(to);
+    }
+  }
+
+  public Collection<Dependency> getOutgoingDependencies(Resource from) {
+    synchronized (lock) {
+      return context.getOutgoingDependencies(from);
+    }
+  }
+
+  public void saveSource(Resource reference, String source) {
+    synchronized (lock) {
+      context.saveSource(reference, source);
+    }
+  }
+
+  public void saveLink(ProjectLink link) {
+    synchronized (lock) {
+      context.saveLink(link);
+    }
+  }
+
+  public void deleteLink(String key) {
+    synchronized (lock) {
+      context.deleteLink(key);
+    }
+  }
+
+  public List<Event> getEvents(Resource resource) {
+    synchronized (lock) {
+      return context.getEvents(resource);
+    }
+  }
+
+  public Event createEvent(Resource resource, String name, String description, String category, Date date) {
+    synchronized (lock) {
+      return context.createEvent(resource, name, description, category, date);
+    }
+  }
+
+  public void deleteEvent(Event event) {
+    synchronized (lock) {
+      context.deleteEvent(event);
+    }
+  }
+}
@@ -34,28 +34,54 @@ import java.util.Map;
 public abstract class AbstractTimeProfiling {
 
   private final long startTime;
+  private final long startCpuTime;
+  private final long startAllocatedBytes;
+  private final long threadId;
 
   private long totalTime;
+  private long totalCpuTime;
+  private long totalAllocatedBytes;
 
   private Clock clock;
 
   public AbstractTimeProfiling(Clock clock) {
     this.clock = clock;
     this.startTime = clock.now();
+    this.startCpuTime = clock.cpuTime();
+    this.startAllocatedBytes = clock.allocatedBytes();
+    this.threadId = Thread.currentThread().getId();
   }
 
   public long startTime() {
     return startTime;
   }
 
+  /**
+   * CPU time and allocated bytes are the ones of the thread calling this method, so they are meaningful only
+   * if it is the thread that created this profiling.
+   */
   public void stop() {
     this.totalTime = clock.now() - startTime;
+    this.totalCpuTime = clock.cpuTime() - startCpuTime;
+    this.totalAllocatedBytes = clock.allocatedBytes() - startAllocatedBytes;
+  }
+
+  boolean isCreatedByThreadOf(AbstractTimeProfiling other) {
+    return threadId == other.threadId;
   }
 
   public long totalTime() {
     return totalTime;
   }
 
+  public long totalCpuTime() {
+    return totalCpuTime;
+  }
+
+  public long totalAllocatedBytes() {
+    return totalAllocatedBytes;
+  }
+
   public String totalTimeAsString() {
     return TimeUtils.formatDuration(totalTime);
   }
@@ -64,8 +90,18 @@ public abstract class AbstractTimeProfiling {
     this.totalTime = totalTime;
   }
 
+  public void setTotalCpuTime(long totalCpuTime) {
+    this.totalCpuTime = totalCpuTime;
+  }
+
+  public void setTotalAllocatedBytes(long totalAllocatedBytes) {
+    this.totalAllocatedBytes = totalAllocatedBytes;
+  }
+
   protected void add(AbstractTimeProfiling other) {
     this.setTotalTime(this.totalTime() + other.totalTime());
+    this.setTotalCpuTime(this.totalCpuTime() + other.totalCpuTime());
+    this.setTotalAllocatedBytes(this.totalAllocatedBytes() + other.totalAllocatedBytes());
   }
 
   static <G extends AbstractTimeProfiling> Map<Object, G> sortByDescendingTotalTime(Map<?, G> unsorted) {
@@ -19,8 +19,46 @@
  */
 package org.sonar.batch.profiling;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
 class Clock {
+
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+  private static final boolean ALLOCATED_BYTES_SUPPORTED = isAllocatedBytesSupported();
+
   public long now() {
     return System.currentTimeMillis();
   }
+
+  /**
+   * CPU time of the current thread, in milliseconds. Zero if not supported by the JVM.
+   */
+  public long cpuTime() {
+    if (THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()) {
+      // -1 if disabled
+      return Math.max(0L, THREAD_MX_BEAN.getCurrentThreadCpuTime() / 1000000L);
+    }
+    return 0L;
+  }
+
+  /**
+   * Bytes allocated by the current thread. Zero if not supported by the JVM.
+   */
+  public long allocatedBytes() {
+    if (ALLOCATED_BYTES_SUPPORTED) {
+      return Math.max(0L, ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getThreadAllocatedBytes(Thread.currentThread().getId()));
+    }
+    return 0L;
+  }
+
+  private static boolean isAllocatedBytesSupported() {
+    try {
+      return THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean
+        && ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).isThreadAllocatedMemorySupported();
+    } catch (NoClassDefFoundError e) {
+      // not a HotSpot JVM
+      return false;
+    }
+  }
 }
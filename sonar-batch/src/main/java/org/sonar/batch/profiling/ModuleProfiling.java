@@ -19,6 +19,7 @@
  */
 package org.sonar.batch.profiling;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.sonar.api.resources.Project;
 import org.sonar.batch.phases.Phases;
@@ -26,8 +27,10 @@ import org.sonar.batch.phases.Phases.Phase;
 
 import javax.annotation.CheckForNull;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -44,6 +47,13 @@ public class ModuleProfiling extends AbstractTimeProfiling {
     this.clock = clock;
   }
 
+  public String moduleKey() {
+    if (module != null) {
+      return module.getKey();
+    }
+    return null;
+  }
+
   public String moduleName() {
     if (module != null) {
       return module.getName();
@@ -59,6 +69,23 @@ public class ModuleProfiling extends AbstractTimeProfiling {
     return profilingPerBatchStep.get(stepName);
   }
 
+  /**
+   * Profilings of the executed phases, in execution order
+   */
+  public List<PhaseProfiling> phaseProfilings() {
+    List<PhaseProfiling> result = Lists.newArrayList();
+    for (Phase phase : Phases.Phase.values()) {
+      if (profilingPerPhase.containsKey(phase)) {
+        result.add(profilingPerPhase.get(phase));
+      }
+    }
+    return result;
+  }
+
+  public Collection<ItemProfiling> batchStepProfilings() {
+    return profilingPerBatchStep.values();
+  }
+
   public void addPhaseProfiling(Phase phase) {
     profilingPerPhase.put(phase, PhaseProfiling.create(clock, phase));
   }
@@ -67,6 +94,18 @@ public class ModuleProfiling extends AbstractTimeProfiling {
     profilingPerBatchStep.put(stepName, new ItemProfiling(clock, stepName));
   }
 
+  /**
+   * Adds the CPU time and the allocated bytes of the phase items executed by other threads, see {@link PhaseProfiling#stop()}.
+   */
+  @Override
+  public void stop() {
+    super.stop();
+    for (PhaseProfiling phaseProfiling : profilingPerPhase.values()) {
+      setTotalCpuTime(totalCpuTime() + phaseProfiling.otherThreadsCpuTime());
+      setTotalAllocatedBytes(totalAllocatedBytes() + phaseProfiling.otherThreadsAllocatedBytes());
+    }
+  }
+
   public void dump() {
     double percent = this.totalTime() / 100.0;
     Map<Object, AbstractTimeProfiling> categories = Maps.newLinkedHashMap();
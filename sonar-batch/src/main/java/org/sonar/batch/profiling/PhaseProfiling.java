@@ -21,6 +21,7 @@ package org.sonar.batch.profiling;
 
 import org.sonar.batch.phases.Phases.Phase;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -33,6 +34,9 @@ public class PhaseProfiling extends AbstractTimeProfiling {
 
   private Clock clock;
 
+  private long otherThreadsCpuTime;
+  private long otherThreadsAllocatedBytes;
+
   public PhaseProfiling(Clock clock, Phase phase) {
     super(clock);
     this.clock = clock;
@@ -56,6 +60,10 @@ public class PhaseProfiling extends AbstractTimeProfiling {
     return profilingPerItem.get(stringOrSimpleName);
   }
 
+  public Collection<ItemProfiling> itemProfilings() {
+    return sortByDescendingTotalTime(profilingPerItem).values();
+  }
+
   public void newItemProfiling(Object item) {
     String stringOrSimpleName = toStringOrSimpleName(item);
     profilingPerItem.put(stringOrSimpleName, new ItemProfiling(clock, stringOrSimpleName));
@@ -65,8 +73,35 @@ public class PhaseProfiling extends AbstractTimeProfiling {
     profilingPerItem.put(itemName, new ItemProfiling(clock, itemName));
   }
 
+  /**
+   * The items executed by other threads, like the sensors annotated with {@link org.sonar.api.batch.Parallelizable},
+   * are not measured by the thread of the phase, which only waits for them. Their CPU time and allocated bytes are added.
+   */
+  @Override
+  public void stop() {
+    super.stop();
+    for (ItemProfiling itemProfiling : profilingPerItem.values()) {
+      if (!itemProfiling.isCreatedByThreadOf(this)) {
+        otherThreadsCpuTime += itemProfiling.totalCpuTime();
+        otherThreadsAllocatedBytes += itemProfiling.totalAllocatedBytes();
+      }
+    }
+    setTotalCpuTime(totalCpuTime() + otherThreadsCpuTime);
+    setTotalAllocatedBytes(totalAllocatedBytes() + otherThreadsAllocatedBytes);
+  }
+
+  long otherThreadsCpuTime() {
+    return otherThreadsCpuTime;
+  }
+
+  long otherThreadsAllocatedBytes() {
+    return otherThreadsAllocatedBytes;
+  }
+
   public void merge(PhaseProfiling other) {
     super.add(other);
+    otherThreadsCpuTime += other.otherThreadsCpuTime;
+    otherThreadsAllocatedBytes += other.otherThreadsAllocatedBytes;
     for (Entry<String, ItemProfiling> entry : other.profilingPerItem.entrySet()) {
       if (!this.profilingPerItem.containsKey(entry.getKey())) {
         newItemProfiling(entry.getKey());
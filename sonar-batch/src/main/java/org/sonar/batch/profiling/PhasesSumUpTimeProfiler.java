@@ -25,6 +25,7 @@ import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.Decorator;
+import org.sonar.api.batch.bootstrap.ProjectReactor;
 import org.sonar.api.batch.events.*;
 import org.sonar.api.resources.Project;
 import org.sonar.api.utils.TimeUtils;
@@ -33,8 +34,9 @@ import org.sonar.batch.phases.Phases;
 
 import javax.annotation.Nullable;
 
-import java.util.HashMap;
+import java.io.File;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -52,13 +54,14 @@ public class PhasesSumUpTimeProfiler implements ProjectAnalysisHandler, SensorEx
   ModuleProfiling currentModuleProfiling;
   @VisibleForTesting
   ModuleProfiling totalProfiling;
-  private Map<Project, ModuleProfiling> modulesProfilings = new HashMap<Project, ModuleProfiling>();
+  private Map<Project, ModuleProfiling> modulesProfilings = new LinkedHashMap<Project, ModuleProfiling>();
   private DecoratorsProfiler decoratorsProfiler;
 
   private Clock clock;
+  private ProfilingReport report;
 
-  public PhasesSumUpTimeProfiler() {
-    this(new Clock());
+  public PhasesSumUpTimeProfiler(ProjectReactor reactor) {
+    this(new Clock(), reactor.getRoot().getWorkDir());
   }
 
   static void println(String msg) {
@@ -76,8 +79,16 @@ public class PhasesSumUpTimeProfiler implements ProjectAnalysisHandler, SensorEx
 
   @VisibleForTesting
   PhasesSumUpTimeProfiler(Clock clock) {
+    this(clock, null);
+  }
+
+  @VisibleForTesting
+  PhasesSumUpTimeProfiler(Clock clock, @Nullable File reportDir) {
     this.clock = clock;
     totalProfiling = new ModuleProfiling(null, clock);
+    if (reportDir != null) {
+      report = new ProfilingReport(reportDir);
+    }
   }
 
   @Override
@@ -98,14 +109,20 @@ public class PhasesSumUpTimeProfiler implements ProjectAnalysisHandler, SensorEx
       println(" -------- End of profiling of module " + module.getName() + " --------");
       println("");
       totalProfiling.merge(currentModuleProfiling);
-      if (module.isRoot() && !module.getModules().isEmpty()) {
-        dumpTotalExecutionSummary();
+      if (module.isRoot()) {
+        totalProfiling.stop();
+        if (!module.getModules().isEmpty()) {
+          dumpTotalExecutionSummary();
+        }
+        if (report != null) {
+          report.write(modulesProfilings.values(), totalProfiling);
+          println("Profiling report written to " + report.file().getAbsolutePath());
+        }
       }
     }
   }
 
   private void dumpTotalExecutionSummary() {
-    totalProfiling.stop();
     long totalTime = totalProfiling.totalTime();
     println("");
     println(" ======== Profiling of total execution: " + TimeUtils.formatDuration(totalTime) + " ========");
@@ -156,8 +173,10 @@ public class PhasesSumUpTimeProfiler implements ProjectAnalysisHandler, SensorEx
       currentModuleProfiling.addPhaseProfiling(Phases.Phase.DECORATOR);
     } else {
       for (Decorator decorator : decoratorsProfiler.getDurations().keySet()) {
-        currentModuleProfiling.getProfilingPerPhase(Phases.Phase.DECORATOR)
-          .getProfilingPerItem(decorator).setTotalTime(decoratorsProfiler.getDurations().get(decorator));
+        ItemProfiling itemProfiling = currentModuleProfiling.getProfilingPerPhase(Phases.Phase.DECORATOR).getProfilingPerItem(decorator);
+        itemProfiling.setTotalTime(decoratorsProfiler.getDurations().get(decorator));
+        itemProfiling.setTotalCpuTime(decoratorsProfiler.getCpuTimes().get(decorator));
+        itemProfiling.setTotalAllocatedBytes(decoratorsProfiler.getAllocatedBytes().get(decorator));
       }
       currentModuleProfiling.getProfilingPerPhase(Phases.Phase.DECORATOR).stop();
     }
@@ -220,7 +239,11 @@ public class PhasesSumUpTimeProfiler implements ProjectAnalysisHandler, SensorEx
   class DecoratorsProfiler {
     private List<Decorator> decorators = Lists.newArrayList();
     private Map<Decorator, Long> durations = new IdentityHashMap<Decorator, Long>();
+    private Map<Decorator, Long> cpuTimes = new IdentityHashMap<Decorator, Long>();
+    private Map<Decorator, Long> allocatedBytes = new IdentityHashMap<Decorator, Long>();
     private long startTime;
+    private long startCpuTime;
+    private long startAllocatedBytes;
     private Decorator currentDecorator;
 
     DecoratorsProfiler() {
@@ -228,6 +251,8 @@ public class PhasesSumUpTimeProfiler implements ProjectAnalysisHandler, SensorEx
 
     void start(Decorator decorator) {
       this.startTime = clock.now();
+      this.startCpuTime = clock.cpuTime();
+      this.startAllocatedBytes = clock.allocatedBytes();
       this.currentDecorator = decorator;
     }
 
@@ -238,14 +263,26 @@ public class PhasesSumUpTimeProfiler implements ProjectAnalysisHandler, SensorEx
       } else {
         decorators.add(currentDecorator);
         cumulatedDuration = 0L;
+        cpuTimes.put(currentDecorator, 0L);
+        allocatedBytes.put(currentDecorator, 0L);
       }
       durations.put(currentDecorator, cumulatedDuration + (clock.now() - startTime));
+      cpuTimes.put(currentDecorator, cpuTimes.get(currentDecorator) + (clock.cpuTime() - startCpuTime));
+      allocatedBytes.put(currentDecorator, allocatedBytes.get(currentDecorator) + (clock.allocatedBytes() - startAllocatedBytes));
     }
 
     public Map<Decorator, Long> getDurations() {
       return durations;
     }
 
+    public Map<Decorator, Long> getCpuTimes() {
+      return cpuTimes;
+    }
+
+    public Map<Decorator, Long> getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
   }
 
 }
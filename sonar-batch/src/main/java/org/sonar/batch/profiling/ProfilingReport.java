@@ -0,0 +1,124 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.profiling;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.Closeables;
+import com.google.gson.stream.JsonWriter;
+import org.sonar.api.utils.SonarException;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+
+/**
+ * Writes the profiling of the analysis as JSON, in order to compare it across analyses.
+ * Durations and CPU times are in milliseconds.
+ */
+class ProfilingReport {
+
+  static final String FILENAME = "profiling.json";
+
+  private final File file;
+
+  ProfilingReport(File dir) {
+    this.file = new File(dir, FILENAME);
+  }
+
+  File file() {
+    return file;
+  }
+
+  void write(Collection<ModuleProfiling> modules, ModuleProfiling total) {
+    Writer output = null;
+    try {
+      file.getParentFile().mkdirs();
+      output = new BufferedWriter(new FileWriter(file));
+      writeJson(output, modules, total);
+
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to write profiling report in file " + file.getAbsolutePath(), e);
+    } finally {
+      Closeables.closeQuietly(output);
+    }
+  }
+
+  @VisibleForTesting
+  void writeJson(Writer writer, Collection<ModuleProfiling> modules, ModuleProfiling total) {
+    JsonWriter json = null;
+    try {
+      json = new JsonWriter(writer);
+      json.setSerializeNulls(false);
+      json.beginObject();
+      json.name("total");
+      writeModule(json, total);
+      json.name("modules").beginArray();
+      for (ModuleProfiling module : modules) {
+        writeModule(json, module);
+      }
+      json.endArray();
+      json.endObject().flush();
+
+    } catch (IOException e) {
+      throw new SonarException("Unable to write JSON profiling report", e);
+    } finally {
+      Closeables.closeQuietly(json);
+    }
+  }
+
+  private void writeModule(JsonWriter json, ModuleProfiling module) throws IOException {
+    json.beginObject();
+    json.name("key").value(module.moduleKey());
+    json.name("name").value(module.moduleName());
+    writeTimes(json, module);
+    json.name("phases").beginArray();
+    for (PhaseProfiling phase : module.phaseProfilings()) {
+      json.beginObject();
+      json.name("name").value(phase.phase().name());
+      writeTimes(json, phase);
+      writeItems(json, "items", phase.itemProfilings());
+      json.endObject();
+    }
+    json.endArray();
+    writeItems(json, "steps", module.batchStepProfilings());
+    json.endObject();
+  }
+
+  private void writeItems(JsonWriter json, String name, Collection<ItemProfiling> items) throws IOException {
+    json.name(name).beginArray();
+    for (ItemProfiling item : items) {
+      json.beginObject();
+      json.name("name").value(item.itemName());
+      writeTimes(json, item);
+      json.endObject();
+    }
+    json.endArray();
+  }
+
+  private void writeTimes(JsonWriter json, AbstractTimeProfiling profiling) throws IOException {
+    json
+      .name("time").value(profiling.totalTime())
+      .name("cpuTime").value(profiling.totalCpuTime())
+      .name("allocatedBytes").value(profiling.totalAllocatedBytes());
+  }
+}
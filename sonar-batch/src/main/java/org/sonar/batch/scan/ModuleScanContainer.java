@@ -40,6 +40,7 @@ import org.sonar.batch.index.ResourcePersister;
 import org.sonar.batch.issue.IssuableFactory;
 import org.sonar.batch.issue.IssueFilters;
 import org.sonar.batch.issue.ModuleIssues;
+import org.sonar.batch.phases.DecoratorsTimeProfiler;
 import org.sonar.batch.phases.PhaseExecutor;
 import org.sonar.batch.phases.PhasesTimeProfiler;
 import org.sonar.batch.scan.filesystem.*;
@@ -123,6 +124,10 @@ public class ModuleScanContainer extends ComponentContainer {
       ModuleIssues.class,
 
       ScanPerspectives.class);
+
+    if (DecoratorsTimeProfiler.isEnabled()) {
+      add(DecoratorsTimeProfiler.class);
+    }
   }
 
   private void addExtensions() {
@@ -30,10 +30,17 @@ import org.sonar.api.scan.filesystem.internal.InputFile;
 import org.sonar.api.scan.filesystem.internal.InputFileFilter;
 
 public class ExclusionFilters implements InputFileFilter, ResourceFilter, BatchComponent {
-  private final FileExclusions exclusionSettings;
+  // patterns are parsed once, as they are evaluated on every indexed file
+  private final PathPattern[] sourceInclusions;
+  private final PathPattern[] testInclusions;
+  private final PathPattern[] sourceExclusions;
+  private final PathPattern[] testExclusions;
 
   public ExclusionFilters(FileExclusions exclusions) {
-    this.exclusionSettings = exclusions;
+    this.sourceInclusions = PathPattern.create(exclusions.sourceInclusions());
+    this.testInclusions = PathPattern.create(exclusions.testInclusions());
+    this.sourceExclusions = PathPattern.create(exclusions.sourceExclusions());
+    this.testExclusions = PathPattern.create(exclusions.testExclusions());
   }
 
   public void start() {
@@ -84,6 +91,28 @@ public class ExclusionFilters implements InputFileFilter, ResourceFilter, BatchC
     return true;
   }
 
+  /**
+   * Whether all the files of a directory are excluded, so that the directory does not need to be walked.
+   *
+   * @param type              {@link InputFile#TYPE_SOURCE} or {@link InputFile#TYPE_TEST}
+   * @param sourceRelativePath path of the directory, relative to its source directory
+   */
+  public boolean isExcludedDirectory(String type, String sourceRelativePath) {
+    PathPattern[] exclusionPatterns = null;
+    if (InputFile.TYPE_SOURCE.equals(type)) {
+      exclusionPatterns = sourceExclusions();
+    } else if (InputFile.TYPE_TEST.equals(type)) {
+      exclusionPatterns = testExclusions();
+    }
+    if (exclusionPatterns != null) {
+      for (PathPattern pattern : exclusionPatterns) {
+        if (pattern.matchAllFilesOfDirectory(sourceRelativePath)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
 
   public boolean isIgnored(Resource resource) {
     if (ResourceUtils.isFile(resource)) {
@@ -124,18 +153,18 @@ public class ExclusionFilters implements InputFileFilter, ResourceFilter, BatchC
   }
 
   PathPattern[] sourceInclusions() {
-    return PathPattern.create(exclusionSettings.sourceInclusions());
+    return sourceInclusions;
   }
 
   PathPattern[] testInclusions() {
-    return PathPattern.create(exclusionSettings.testInclusions());
+    return testInclusions;
   }
 
   PathPattern[] sourceExclusions() {
-    return PathPattern.create(exclusionSettings.sourceExclusions());
+    return sourceExclusions;
   }
 
   PathPattern[] testExclusions() {
-    return PathPattern.create(exclusionSettings.testExclusions());
+    return testExclusions;
   }
 }
@@ -19,8 +19,9 @@
  */
 package org.sonar.batch.scan.filesystem;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.FileFilterUtils;
 import org.apache.commons.io.filefilter.HiddenFileFilter;
 import org.apache.commons.io.filefilter.IOFileFilter;
@@ -42,10 +43,14 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import java.io.File;
 import java.nio.charset.Charset;
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Index input files into {@link InputFileCache}.
@@ -55,6 +60,9 @@ public class FileIndex implements BatchComponent {
   private static class Progress {
     private int count = 0;
     private final Set<String> removedPaths;
+    // files to be converted to InputFile, in the order of indexation
+    private final List<Callable<InputFile>> pendingFiles = Lists.newArrayList();
+    private ExecutorService executor;
 
     Progress(Set<String> removedPaths) {
       this.removedPaths = removedPaths;
@@ -64,21 +72,42 @@ public class FileIndex implements BatchComponent {
       count++;
       removedPaths.remove(relativePath);
     }
+
+    ExecutorService executor() {
+      if (executor == null) {
+        executor = Executors.newFixedThreadPool(THREADS);
+      }
+      return executor;
+    }
+
+    void stop() {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
   }
 
   private static final IOFileFilter DIR_FILTER = FileFilterUtils.and(HiddenFileFilter.VISIBLE, FileFilterUtils.notFileFilter(FileFilterUtils.prefixFileFilter(".")));
   private static final IOFileFilter FILE_FILTER = HiddenFileFilter.VISIBLE;
 
+  // reading and hashing files is done concurrently
+  private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+  // maximum number of files waiting to be read and hashed, so that large modules are not fully buffered in memory
+  static final int MAX_PENDING_FILES = 1000;
+
   private final PathResolver pathResolver;
   private final List<InputFileFilter> filters;
   private final LanguageRecognizer languageRecognizer;
   private final InputFileCache cache;
   private final FileHashes fileHashes;
   private final Project project;
+  private final ExclusionFilters exclusionFilters;
 
-  public FileIndex(List<InputFileFilter> filters, LanguageRecognizer languageRecognizer,
+  public FileIndex(List<InputFileFilter> filters, ExclusionFilters exclusionFilters, LanguageRecognizer languageRecognizer,
                    InputFileCache cache, FileHashes fileHashes, PathResolver pathResolver, Project project) {
     this.filters = filters;
+    this.exclusionFilters = exclusionFilters;
     this.languageRecognizer = languageRecognizer;
     this.cache = cache;
     this.fileHashes = fileHashes;
@@ -92,7 +121,21 @@ public class FileIndex implements BatchComponent {
     // TODO log configuration too (replace FileSystemLogger)
 
     Progress progress = new Progress(cache.fileRelativePaths(fileSystem.moduleKey()));
+    try {
+      indexSourcesAndTests(fileSystem, progress);
+    } finally {
+      progress.stop();
+    }
 
+    // Remove files that have been removed since previous indexation
+    for (String path : progress.removedPaths) {
+      cache.remove(fileSystem.moduleKey(), path);
+    }
+
+    logger.info(String.format("%d files indexed", progress.count));
+  }
+
+  private void indexSourcesAndTests(DefaultModuleFileSystem fileSystem, Progress progress) {
     if (fileSystem.sourceFiles().isEmpty()) {
       // index directories
       for (File sourceDir : fileSystem.sourceDirs()) {
@@ -113,12 +156,7 @@ public class FileIndex implements BatchComponent {
       indexFiles(fileSystem, progress, fileSystem.testDirs(), fileSystem.testFiles(), InputFile.TYPE_TEST);
     }
 
-    // Remove files that have been removed since previous indexation
-    for (String path : progress.removedPaths) {
-      cache.remove(fileSystem.moduleKey(), path);
-    }
-
-    logger.info(String.format("%d files indexed", progress.count));
+    indexPendingFiles(fileSystem, progress);
   }
 
   private void indexFiles(DefaultModuleFileSystem fileSystem, Progress progress, List<File> sourceDirs, List<File> sourceFiles, String type) {
@@ -139,23 +177,74 @@ public class FileIndex implements BatchComponent {
   }
 
   private void indexDirectory(DefaultModuleFileSystem fileSystem, Progress status, File sourceDir, String type) {
-    Collection<File> files = FileUtils.listFiles(sourceDir, FILE_FILTER, DIR_FILTER);
-    for (File file : files) {
-      indexFile(fileSystem, status, sourceDir, file, type);
+    indexDirectory(fileSystem, status, sourceDir, sourceDir, "", type);
+  }
+
+  /**
+   * Directories which files are all excluded are not walked
+   */
+  private void indexDirectory(DefaultModuleFileSystem fileSystem, Progress status, File sourceDir, File dir, String sourceRelativePath, String type) {
+    File[] children = dir.listFiles();
+    if (children == null) {
+      return;
+    }
+    for (File child : children) {
+      if (child.isDirectory()) {
+        String childPath = sourceRelativePath.isEmpty() ? child.getName() : (sourceRelativePath + "/" + child.getName());
+        if (DIR_FILTER.accept(child) && !exclusionFilters.isExcludedDirectory(type, childPath)) {
+          indexDirectory(fileSystem, status, sourceDir, child, childPath, type);
+        }
+      } else if (FILE_FILTER.accept(child)) {
+        indexFile(fileSystem, status, sourceDir, child, type);
+      }
     }
   }
 
-  private void indexFile(DefaultModuleFileSystem fileSystem, Progress status, File sourceDir, File file, String type) {
-    String path = pathResolver.relativePath(fileSystem.baseDir(), file);
+  private void indexFile(final DefaultModuleFileSystem fileSystem, Progress status, final File sourceDir, final File file, final String type) {
+    final String path = pathResolver.relativePath(fileSystem.baseDir(), file);
     if (path == null) {
       LoggerFactory.getLogger(getClass()).warn(String.format("File '%s' is not in basedir '%s'", file.getAbsolutePath(), fileSystem.baseDir()));
     } else {
-      InputFile input = newInputFile(fileSystem, sourceDir, type, file, path);
+      status.pendingFiles.add(new Callable<InputFile>() {
+        public InputFile call() {
+          return newInputFile(fileSystem, sourceDir, type, file, path);
+        }
+      });
+      if (status.pendingFiles.size() >= MAX_PENDING_FILES) {
+        indexPendingFiles(fileSystem, status);
+      }
+    }
+  }
+
+  /**
+   * Files are read and hashed concurrently, but filtered and cached in the order of indexation
+   */
+  private void indexPendingFiles(DefaultModuleFileSystem fileSystem, Progress progress) {
+    for (InputFile input : newInputFiles(progress)) {
       if (input != null && accept(input)) {
         cache.put(fileSystem.moduleKey(), input);
-        status.markAsIndexed(path);
+        progress.markAsIndexed(input.path());
+      }
+    }
+    progress.pendingFiles.clear();
+  }
+
+  private List<InputFile> newInputFiles(Progress progress) {
+    List<InputFile> result = Lists.newArrayListWithCapacity(progress.pendingFiles.size());
+    if (progress.pendingFiles.isEmpty()) {
+      return result;
+    }
+    try {
+      for (Future<InputFile> inputFile : progress.executor().invokeAll(progress.pendingFiles)) {
+        result.add(inputFile.get());
       }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Indexing of files has been interrupted", e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
     }
+    return result;
   }
 
   @CheckForNull
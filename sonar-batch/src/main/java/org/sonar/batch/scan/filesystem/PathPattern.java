@@ -38,6 +38,12 @@ abstract class PathPattern {
 
   abstract boolean supportResource();
 
+  /**
+   * @param sourceRelativePath path of a directory, relative to its source directory
+   * @return true if the pattern matches all the files of the directory, whatever their depth
+   */
+  abstract boolean matchAllFilesOfDirectory(String sourceRelativePath);
+
   static PathPattern create(String s) {
     String trimmed = StringUtils.trim(s);
     if (StringUtils.startsWithIgnoreCase(trimmed, "file:")) {
@@ -74,6 +80,11 @@ abstract class PathPattern {
       return false;
     }
 
+    @Override
+    boolean matchAllFilesOfDirectory(String sourceRelativePath) {
+      return false;
+    }
+
     @Override
     public String toString() {
       return "file:" + pattern.toString();
@@ -84,8 +95,19 @@ abstract class PathPattern {
    * Path relative to source directory
    */
   private static class RelativePathPattern extends PathPattern {
+    private static final String ALL_FILES_SUFFIX = "/**";
+
+    // pattern of the directories which files all match, for example "**/generated" for "**/generated/**"
+    private final WildcardPattern directoryPattern;
+
     private RelativePathPattern(String pattern) {
       super(pattern);
+      String directory = StringUtils.removeEnd(pattern, ALL_FILES_SUFFIX);
+      if (pattern.endsWith(ALL_FILES_SUFFIX) && StringUtils.isNotEmpty(directory) && !directory.endsWith("*")) {
+        this.directoryPattern = WildcardPattern.create(directory);
+      } else {
+        this.directoryPattern = null;
+      }
     }
 
     @Override
@@ -104,6 +126,11 @@ abstract class PathPattern {
       return true;
     }
 
+    @Override
+    boolean matchAllFilesOfDirectory(String sourceRelativePath) {
+      return directoryPattern != null && directoryPattern.match(sourceRelativePath);
+    }
+
     @Override
     public String toString() {
       return pattern.toString();
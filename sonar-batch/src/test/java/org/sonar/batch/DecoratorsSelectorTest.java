@@ -22,6 +22,7 @@ package org.sonar.batch;
 import com.google.common.collect.Iterables;
 import org.junit.Test;
 import org.sonar.api.batch.BatchExtensionDictionnary;
+import org.sonar.api.batch.Decorates;
 import org.sonar.api.batch.Decorator;
 import org.sonar.api.batch.DecoratorContext;
 import org.sonar.api.batch.DependedUpon;
@@ -32,7 +33,9 @@ import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.platform.ComponentContainer;
 import org.sonar.api.resources.Project;
+import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.Resource;
+import org.sonar.api.resources.Scopes;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -76,6 +79,19 @@ public class DecoratorsSelectorTest {
     assertThat(Iterables.get(formulaDecorator.dependsUponDecorators(), 0)).isEqualTo(firstDecorator);
   }
 
+  @Test
+  public void selectDecoratorsByScopeAndQualifier() {
+    Decorator any = new FakeDecorator();
+    Decorator onProjects = new ProjectDecorator();
+    Decorator onUnitTests = new UnitTestDecorator();
+    List<Decorator> decorators = Arrays.asList(onUnitTests, any, onProjects);
+
+    assertThat(DecoratorsSelector.select(decorators, Scopes.PROJECT, Qualifiers.MODULE)).containsExactly(any, onProjects);
+    assertThat(DecoratorsSelector.select(decorators, Scopes.DIRECTORY, Qualifiers.DIRECTORY)).containsExactly(any);
+    assertThat(DecoratorsSelector.select(decorators, Scopes.FILE, Qualifiers.FILE)).containsExactly(any);
+    assertThat(DecoratorsSelector.select(decorators, Scopes.FILE, Qualifiers.UNIT_TEST_FILE)).containsExactly(onUnitTests, any);
+  }
+
   private BatchExtensionDictionnary newBatchDictionnary(Object... extensions) {
     ComponentContainer ioc = new ComponentContainer();
     for (Object extension : extensions) {
@@ -118,4 +134,12 @@ public class DecoratorsSelectorTest {
       return true;
     }
   }
+
+  @Decorates(scopes = Scopes.PROJECT)
+  public class ProjectDecorator extends FakeDecorator {
+  }
+
+  @Decorates(scopes = Scopes.FILE, qualifiers = Qualifiers.UNIT_TEST_FILE)
+  public class UnitTestDecorator extends FakeDecorator {
+  }
 }
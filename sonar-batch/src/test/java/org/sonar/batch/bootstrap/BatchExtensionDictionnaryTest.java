@@ -21,16 +21,23 @@ package org.sonar.batch.bootstrap;
 
 import org.junit.Test;
 import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.DependedUpon;
+import org.sonar.api.batch.DependsUpon;
+import org.sonar.api.batch.Phase;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.platform.ComponentContainer;
 import org.sonar.api.resources.Project;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.internal.matchers.IsCollectionContaining.hasItem;
+import static org.fest.assertions.Assertions.assertThat;
 
 public class BatchExtensionDictionnaryTest {
 
@@ -58,6 +65,32 @@ public class BatchExtensionDictionnaryTest {
     assertEquals(1, sensors.size());
   }
 
+  @Test
+  public void shouldGetTransitiveDependencies() {
+    Sensor generator = new GeneratorSensor(), consumer = new ConsumerSensor(), independent = new FakeSensor(), post = new PostSensor();
+    BatchExtensionDictionnary selector = newSelector(generator, consumer, independent, post);
+
+    Map<Sensor, Set<Sensor>> dependencies = selector.getTransitiveDependencies(Arrays.asList(generator, consumer, independent, post));
+
+    assertThat(dependencies.get(generator)).isEmpty();
+    assertThat(dependencies.get(independent)).isEmpty();
+    assertThat(dependencies.get(consumer)).containsOnly(generator);
+    // through phases
+    assertThat(dependencies.get(post)).containsOnly(generator, consumer, independent);
+  }
+
+  @DependedUpon("foo")
+  class GeneratorSensor extends FakeSensor {
+  }
+
+  @DependsUpon("foo")
+  class ConsumerSensor extends FakeSensor {
+  }
+
+  @Phase(name = Phase.Name.POST)
+  class PostSensor extends FakeSensor {
+  }
+
   class FakeSensor implements Sensor {
 
     public void analyse(Project project, SensorContext context) {
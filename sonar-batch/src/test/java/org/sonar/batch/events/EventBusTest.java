@@ -21,6 +21,7 @@ package org.sonar.batch.events;
 
 import org.sonar.api.batch.events.EventHandler;
 
+import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
@@ -43,6 +44,38 @@ public class EventBusTest {
     verify(secondHandler).onEvent(secondEvent);
   }
 
+  @Test
+  public void shouldPrecomputeHandlersByType() {
+    FirstHandler firstHandler = mock(FirstHandler.class);
+    BothHandler bothHandler = mock(BothHandler.class);
+    EventBus eventBus = new EventBus(new EventHandler[] {firstHandler, bothHandler});
+
+    assertThat(eventBus.getHandlers(FirstHandler.class)).containsOnly(firstHandler, bothHandler);
+    assertThat(eventBus.getHandlers(SecondHandler.class)).containsOnly(bothHandler);
+    assertThat(eventBus.getHandlers(ThirdHandler.class)).isEmpty();
+    assertThat(eventBus.hasHandlers(SecondHandler.class)).isTrue();
+    assertThat(eventBus.hasHandlers(ThirdHandler.class)).isFalse();
+  }
+
+  @Test
+  public void shouldCountEvents() {
+    EventBus eventBus = new EventBus(new EventHandler[] {mock(FirstHandler.class)});
+
+    eventBus.fireEvent(new FirstEvent());
+    eventBus.fireEvent(new FirstEvent());
+    eventBus.fireEvent(new SecondEvent());
+
+    assertThat(eventBus.getEventCount(FirstHandler.class)).isEqualTo(2L);
+    assertThat(eventBus.getEventCount(SecondHandler.class)).isEqualTo(0L);
+    assertThat(eventBus.getEventCountWithoutHandlers()).isEqualTo(1L);
+  }
+
+  interface ThirdHandler extends EventHandler {
+  }
+
+  interface BothHandler extends FirstHandler, SecondHandler {
+  }
+
   interface FirstHandler extends EventHandler {
     void onEvent(FirstEvent event);
   }
@@ -25,6 +25,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.database.model.ResourceModel;
+import org.sonar.api.database.model.Snapshot;
 import org.sonar.api.resources.JavaFile;
 import org.sonar.api.resources.JavaPackage;
 import org.sonar.api.resources.Library;
@@ -142,11 +143,47 @@ public class DefaultResourcePersisterTest extends AbstractDbUnitTestCase {
     ResourcePersister persister = new DefaultResourcePersister(getSession(), mock(ResourcePermissions.class), snapshotCache, resourceCache);
     persister.saveProject(singleProject, null);
     persister.saveResource(singleProject, new JavaPackage("org.foo").setEffectiveKey("foo:org.foo"));
+    persister.flush();
 
     // check that the directory is attached to the project
     checkTables("shouldSaveNewDirectory", new String[] {"build_date", "created_at"}, "projects", "snapshots");
   }
 
+  @Test
+  public void shouldUpdateExistingDirectory() {
+    setupData("shouldUpdateExistingDirectory");
+
+    ResourcePersister persister = new DefaultResourcePersister(getSession(), mock(ResourcePermissions.class), snapshotCache, resourceCache);
+    persister.saveProject(singleProject, null);
+    JavaPackage directory = new JavaPackage("org.foo");
+    Snapshot snapshot = persister.saveResource(singleProject, directory.setEffectiveKey("foo:org.foo"));
+    persister.flush();
+
+    assertThat(directory.getId(), is(1002));
+    assertThat(snapshot.getId(), is(3003));
+    verify(snapshotCache).put("foo:org.foo", snapshot);
+    checkTables("shouldUpdateExistingDirectory", new String[] {"build_date", "created_at"}, "projects", "snapshots");
+  }
+
+  @Test
+  public void shouldNotLoadResourcesOfSubModules() {
+    setupData("shouldNotLoadResourcesOfSubModules");
+
+    ResourcePersister persister = new DefaultResourcePersister(getSession(), mock(ResourcePermissions.class), snapshotCache, resourceCache);
+    persister.saveProject(singleProject, null);
+    JavaPackage directory = new JavaPackage("org.foo");
+    persister.saveResource(singleProject, directory.setEffectiveKey("foo:org.foo"));
+    persister.flush();
+
+    assertThat(directory.getId(), is(1002));
+  }
+
+  @Test
+  public void shouldEscapeWildcardsOfKeys() {
+    assertThat(DefaultResourcePersister.escapeLike("my_project:"), is("my/_project:"));
+    assertThat(DefaultResourcePersister.escapeLike("100%/foo"), is("100/%//foo"));
+  }
+
   @Test
   public void shouldSaveNewLibrary() {
     setupData("shared");
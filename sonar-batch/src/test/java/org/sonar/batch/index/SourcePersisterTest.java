@@ -47,6 +47,7 @@ public class SourcePersisterTest extends AbstractDbUnitTestCase {
   @Test
   public void shouldSaveSource() {
     sourcePersister.saveSource(new JavaFile("org.foo.Bar"), "this is the file content");
+    sourcePersister.clear();
     checkTables("shouldSaveSource", "snapshot_sources");
   }
 
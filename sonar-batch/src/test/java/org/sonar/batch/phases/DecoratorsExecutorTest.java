@@ -22,16 +22,21 @@ package org.sonar.batch.phases;
 import org.sonar.core.measure.MeasurementFilters;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.sonar.api.batch.BatchExtensionDictionnary;
 import org.sonar.api.batch.Decorator;
 import org.sonar.api.batch.DecoratorContext;
 import org.sonar.api.batch.SonarIndex;
+import org.sonar.api.batch.events.DecoratorExecutionHandler;
+import org.sonar.api.platform.ComponentContainer;
 import org.sonar.api.resources.File;
 import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.utils.SonarException;
 import org.sonar.batch.DefaultDecoratorContext;
+import org.sonar.batch.events.BatchEvent;
 import org.sonar.batch.events.EventBus;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.number.OrderingComparisons.greaterThanOrEqualTo;
 import static org.hamcrest.number.OrderingComparisons.lessThan;
 import static org.junit.Assert.assertThat;
@@ -40,6 +45,9 @@ import static org.junit.matchers.JUnitMatchers.containsString;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class DecoratorsExecutorTest {
 
@@ -47,7 +55,7 @@ public class DecoratorsExecutorTest {
   public void shouldProfileExecutionTime() {
     Decorator1 decorator1 = new Decorator1();
     Decorator2 decorator2 = new Decorator2();
-    PhasesTimeProfiler.DecoratorsProfiler profiler = new PhasesTimeProfiler.DecoratorsProfiler();
+    DecoratorsTimeProfiler.DecoratorsProfiler profiler = new DecoratorsTimeProfiler.DecoratorsProfiler();
 
     profiler.start(decorator1);
     profiler.stop();
@@ -77,6 +85,40 @@ public class DecoratorsExecutorTest {
     }
   }
 
+  @Test
+  public void shouldNotCreateDecoratorExecutionEventsWithoutHandler() {
+    EventBus eventBus = mock(EventBus.class);
+    when(eventBus.hasHandlers(DecoratorExecutionHandler.class)).thenReturn(false);
+
+    newExecutor(eventBus).execute();
+
+    ArgumentCaptor<BatchEvent> events = ArgumentCaptor.forClass(BatchEvent.class);
+    verify(eventBus, times(2)).fireEvent(events.capture());
+    for (BatchEvent event : events.getAllValues()) {
+      assertThat(event, instanceOf(DecoratorsPhaseEvent.class));
+    }
+  }
+
+  @Test
+  public void shouldFireDecoratorExecutionEventsToHandlers() {
+    EventBus eventBus = mock(EventBus.class);
+    when(eventBus.hasHandlers(DecoratorExecutionHandler.class)).thenReturn(true);
+
+    newExecutor(eventBus).execute();
+
+    ArgumentCaptor<BatchEvent> events = ArgumentCaptor.forClass(BatchEvent.class);
+    verify(eventBus, times(4)).fireEvent(events.capture());
+    assertThat(events.getAllValues().get(1), instanceOf(DecoratorExecutionEvent.class));
+    assertThat(events.getAllValues().get(2), instanceOf(DecoratorExecutionEvent.class));
+  }
+
+  private DecoratorsExecutor newExecutor(EventBus eventBus) {
+    ComponentContainer container = new ComponentContainer();
+    container.addSingleton(new Decorator1());
+    return new DecoratorsExecutor(new BatchExtensionDictionnary(container), new Project("key"), mock(SonarIndex.class),
+        eventBus, mock(MeasurementFilters.class));
+  }
+
   static class Decorator1 implements Decorator {
     public void decorate(Resource resource, DecoratorContext context) {
     }
@@ -0,0 +1,73 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.phases;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.sonar.api.batch.Sensor;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.resources.Project;
+
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class PhasesTimeProfilerTest {
+
+  @Test
+  public void should_profile_overlapping_sensors() {
+    Logger logger = mock(Logger.class);
+    PhasesTimeProfiler profiler = new PhasesTimeProfiler(logger);
+    Sensor sensorA = new FakeSensor("A");
+    Sensor sensorB = new FakeSensor("B");
+
+    profiler.onSensorExecution(new SensorExecutionEvent(sensorA, true));
+    profiler.onSensorExecution(new SensorExecutionEvent(sensorB, true));
+    profiler.onSensorExecution(new SensorExecutionEvent(sensorA, false));
+    profiler.onSensorExecution(new SensorExecutionEvent(sensorB, false));
+
+    verify(logger).info("Sensor A...");
+    verify(logger).info("Sensor B...");
+    verify(logger, times(1)).info(eq("{} done: {} ms"), eq("Sensor A"), anyObject());
+    verify(logger, times(1)).info(eq("{} done: {} ms"), eq("Sensor B"), anyObject());
+  }
+
+  private static class FakeSensor implements Sensor {
+    private final String name;
+
+    FakeSensor(String name) {
+      this.name = name;
+    }
+
+    public void analyse(Project project, SensorContext context) {
+    }
+
+    public boolean shouldExecuteOnProject(Project project) {
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+}
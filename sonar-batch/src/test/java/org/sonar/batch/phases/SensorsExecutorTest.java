@@ -0,0 +1,213 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.phases;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.sonar.api.batch.DependedUpon;
+import org.sonar.api.batch.DependsUpon;
+import org.sonar.api.batch.Parallelizable;
+import org.sonar.api.batch.Phase;
+import org.sonar.api.batch.Sensor;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.database.DatabaseSession;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.platform.ComponentContainer;
+import org.sonar.api.resources.Project;
+import org.sonar.batch.bootstrap.BatchExtensionDictionnary;
+import org.sonar.batch.events.EventBus;
+import org.sonar.batch.scan.filesystem.DefaultModuleFileSystem;
+import org.sonar.batch.scan.maven.MavenPluginExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SensorsExecutorTest {
+
+  Project project = new Project("project");
+  List<String> executions = Collections.synchronizedList(new ArrayList<String>());
+
+  @Test
+  public void should_execute_parallelizable_sensors_after_their_dependencies() {
+    execute(new ConsumerSensor("consumer"), new ParallelizableSensor("independent"), new GeneratorSensor("generator"));
+
+    assertThat(executions).hasSize(3);
+    assertThat(executions.indexOf("generator")).isLessThan(executions.indexOf("consumer"));
+  }
+
+  @Test
+  public void should_execute_parallelizable_sensors_between_sequential_sensors() {
+    execute(new LastSensor("last"), new ParallelizableSensor("parallel1"), new FirstSensor("first"), new ParallelizableSensor("parallel2"));
+
+    assertThat(executions).hasSize(4);
+    assertThat(executions.get(0)).isEqualTo("first");
+    assertThat(executions.subList(1, 3)).containsOnly("parallel1", "parallel2");
+    assertThat(executions.get(3)).isEqualTo("last");
+  }
+
+  @Test
+  public void should_give_synchronized_context_to_parallelizable_sensors() {
+    ParallelizableSensor parallelizable = new ParallelizableSensor("parallel");
+    FakeSensor sequential = new FakeSensor("sequential");
+    SensorContext context = mock(SensorContext.class);
+
+    execute(context, parallelizable, sequential);
+
+    assertThat(parallelizable.context).isInstanceOf(SynchronizedSensorContext.class);
+    assertThat(sequential.context).isSameAs(context);
+  }
+
+  @Test
+  public void should_serialize_concurrent_calls_to_context() {
+    final AtomicInteger calls = new AtomicInteger();
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    SensorContext context = mock(SensorContext.class);
+    when(context.saveMeasure(any(Metric.class), anyDouble())).thenAnswer(new Answer<Object>() {
+      public Object answer(InvocationOnMock invocation) throws InterruptedException {
+        int concurrentCalls = running.incrementAndGet();
+        maxRunning.set(Math.max(maxRunning.get(), concurrentCalls));
+        Thread.sleep(1);
+        calls.incrementAndGet();
+        running.decrementAndGet();
+        return null;
+      }
+    });
+    CountDownLatch started = new CountDownLatch(2);
+
+    execute(context, new SavingSensor("saving1", started), new SavingSensor("saving2", started));
+
+    assertThat(executions).containsOnly("saving1", "saving2");
+    assertThat(calls.get()).isEqualTo(2 * SavingSensor.MEASURES);
+    assertThat(maxRunning.get()).isEqualTo(1);
+  }
+
+  private void execute(Sensor... sensors) {
+    execute(mock(SensorContext.class), sensors);
+  }
+
+  private void execute(SensorContext context, Sensor... sensors) {
+    ComponentContainer container = new ComponentContainer();
+    for (Sensor sensor : sensors) {
+      container.addSingleton(sensor);
+    }
+    SensorsExecutor executor = new SensorsExecutor(new BatchExtensionDictionnary(container), project, mock(DefaultModuleFileSystem.class),
+      mock(MavenPluginExecutor.class), mock(EventBus.class), mock(DatabaseSession.class), null);
+    executor.execute(context);
+  }
+
+  class FakeSensor implements Sensor {
+    final String name;
+    SensorContext context;
+
+    FakeSensor(String name) {
+      this.name = name;
+    }
+
+    public void analyse(Project project, SensorContext context) {
+      this.context = context;
+      executions.add(name);
+    }
+
+    public boolean shouldExecuteOnProject(Project project) {
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  @Phase(name = Phase.Name.PRE)
+  class FirstSensor extends FakeSensor {
+    FirstSensor(String name) {
+      super(name);
+    }
+  }
+
+  @Phase(name = Phase.Name.POST)
+  class LastSensor extends FakeSensor {
+    LastSensor(String name) {
+      super(name);
+    }
+  }
+
+  @Parallelizable
+  class ParallelizableSensor extends FakeSensor {
+    ParallelizableSensor(String name) {
+      super(name);
+    }
+  }
+
+  @Parallelizable
+  @DependedUpon("foo")
+  class GeneratorSensor extends FakeSensor {
+    GeneratorSensor(String name) {
+      super(name);
+    }
+  }
+
+  @Parallelizable
+  @DependsUpon("foo")
+  class ConsumerSensor extends FakeSensor {
+    ConsumerSensor(String name) {
+      super(name);
+    }
+  }
+
+  @Parallelizable
+  class SavingSensor extends FakeSensor {
+    static final int MEASURES = 50;
+    final CountDownLatch started;
+
+    SavingSensor(String name, CountDownLatch started) {
+      super(name);
+      this.started = started;
+    }
+
+    @Override
+    public void analyse(Project project, SensorContext context) {
+      super.analyse(project, context);
+      // wait for the other sensor, unless there is a single processor
+      started.countDown();
+      try {
+        started.await(1, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      for (int i = 0; i < MEASURES; i++) {
+        context.saveMeasure(CoreMetrics.NCLOC, (double) i);
+      }
+    }
+  }
+}
@@ -19,8 +19,11 @@
  */
 package org.sonar.batch.profiling;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.sonar.api.batch.Decorator;
 import org.sonar.api.batch.DecoratorContext;
 import org.sonar.api.batch.Initializer;
@@ -45,6 +48,7 @@ import org.sonar.api.resources.Resource;
 import org.sonar.batch.events.BatchStepEvent;
 import org.sonar.batch.phases.Phases.Phase;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -55,6 +59,9 @@ import static org.mockito.Mockito.when;
 
 public class PhasesSumUpTimeProfilerTest {
 
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
   private MockedClock clock;
   private PhasesSumUpTimeProfiler profiler;
 
@@ -107,6 +114,60 @@ public class PhasesSumUpTimeProfilerTest {
     assertThat(profiler.totalProfiling.getProfilingPerPhase(Phase.POSTJOB).getProfilingPerItem(new FakePostJob()).totalTime()).isEqualTo(90L);
   }
 
+  @Test
+  public void shouldAddCpuTimeOfSensorsExecutedByOtherThreads() throws InterruptedException {
+    final Sensor sensor = new FakeSensor();
+    Project project = mockProject("project", true);
+    when(project.getModules()).thenReturn(Collections.<Project> emptyList());
+    profiler.onProjectAnalysis(projectEvent(project, true));
+    profiler.onSensorsPhase(sensorsEvent(true));
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        profiler.onSensorExecution(sensorEvent(sensor, true));
+        clock.sleep(10);
+        profiler.onSensorExecution(sensorEvent(sensor, false));
+      }
+    };
+    thread.start();
+    thread.join();
+    profiler.onSensorsPhase(sensorsEvent(false));
+    profiler.onProjectAnalysis(projectEvent(project, false));
+
+    // the mocked clock is shared by all the threads, so the thread of the phase also measures the 10ms of the sensor
+    PhaseProfiling phaseProfiling = profiler.currentModuleProfiling.getProfilingPerPhase(Phase.SENSOR);
+    assertThat(phaseProfiling.totalTime()).isEqualTo(10L);
+    assertThat(phaseProfiling.totalCpuTime()).isEqualTo(20L);
+    assertThat(phaseProfiling.totalAllocatedBytes()).isEqualTo(2000L);
+    assertThat(profiler.currentModuleProfiling.totalCpuTime()).isEqualTo(20L);
+    assertThat(profiler.totalProfiling.totalCpuTime()).isEqualTo(20L);
+  }
+
+  @Test
+  public void shouldWriteJsonReport() throws Exception {
+    File reportDir = temp.newFolder();
+    profiler = new PhasesSumUpTimeProfiler(clock, reportDir);
+    final Project project = mockProject("project root", true);
+    when(project.getKey()).thenReturn("org.foo:root");
+    final Project moduleA = mockProject("moduleA", false);
+    when(moduleA.getKey()).thenReturn("org.foo:moduleA");
+    when(project.getModules()).thenReturn(Arrays.asList(moduleA));
+
+    fakeAnalysis(profiler, moduleA);
+    assertThat(new File(reportDir, ProfilingReport.FILENAME)).doesNotExist();
+
+    fakeAnalysis(profiler, project);
+    String json = FileUtils.readFileToString(new File(reportDir, ProfilingReport.FILENAME));
+    assertThat(json).startsWith("{\"total\":{\"time\":180,\"cpuTime\":180,\"allocatedBytes\":18000,");
+    assertThat(json).contains("{\"key\":\"org.foo:moduleA\",\"name\":\"moduleA\",\"time\":90,\"cpuTime\":90,\"allocatedBytes\":9000,");
+    assertThat(json).contains("{\"key\":\"org.foo:root\",\"name\":\"project root\",\"time\":90,");
+    assertThat(json).contains("{\"name\":\"DECORATOR\",\"time\":30,\"cpuTime\":30,\"allocatedBytes\":3000,\"items\":["
+      + "{\"name\":\"FakeDecorator1\",\"time\":20,\"cpuTime\":20,\"allocatedBytes\":2000},"
+      + "{\"name\":\"FakeDecorator2\",\"time\":10,\"cpuTime\":10,\"allocatedBytes\":1000}]}");
+    assertThat(json).contains("\"steps\":[{\"name\":\"Free memory\",\"time\":9,\"cpuTime\":9,\"allocatedBytes\":900}]");
+    assertThat(json.indexOf("org.foo:moduleA")).isLessThan(json.indexOf("org.foo:root"));
+  }
+
   @Test
   public void testDisplayTimings() {
     AbstractTimeProfiling profiling = new AbstractTimeProfiling(new Clock()) {
@@ -133,6 +194,16 @@ public class PhasesSumUpTimeProfilerTest {
       return now;
     }
 
+    @Override
+    public long cpuTime() {
+      return now;
+    }
+
+    @Override
+    public long allocatedBytes() {
+      return now * 100;
+    }
+
     public void sleep(long duration) {
       now += duration;
     }
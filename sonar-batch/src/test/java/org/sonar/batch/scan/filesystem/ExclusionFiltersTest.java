@@ -236,5 +236,21 @@ public class ExclusionFiltersTest {
     assertThat(filter.sourceExclusions()[0].toString()).isEqualTo("**/*Dao.java");
   }
 
+  @Test
+  public void should_exclude_directories() throws IOException {
+    Settings settings = new Settings();
+    settings.setProperty(CoreProperties.PROJECT_EXCLUSIONS_PROPERTY, "**/generated/**,com/mycompany/*Dao.java,file:**/legacy/**");
+    settings.setProperty(CoreProperties.PROJECT_TEST_EXCLUSIONS_PROPERTY, "com/mycompany/it/**");
+    ExclusionFilters filter = new ExclusionFilters(new FileExclusions(settings));
 
+    assertThat(filter.isExcludedDirectory(InputFile.TYPE_SOURCE, "generated")).isTrue();
+    assertThat(filter.isExcludedDirectory(InputFile.TYPE_SOURCE, "com/mycompany/generated")).isTrue();
+    assertThat(filter.isExcludedDirectory(InputFile.TYPE_SOURCE, "com/mycompany")).isFalse();
+    assertThat(filter.isExcludedDirectory(InputFile.TYPE_SOURCE, "com/mycompany/legacy")).isFalse();
+    assertThat(filter.isExcludedDirectory(InputFile.TYPE_SOURCE, "com/mycompany/it")).isFalse();
+
+    assertThat(filter.isExcludedDirectory(InputFile.TYPE_TEST, "com/mycompany/it")).isTrue();
+    assertThat(filter.isExcludedDirectory(InputFile.TYPE_TEST, "com/mycompany/it/foo")).isFalse();
+    assertThat(filter.isExcludedDirectory(InputFile.TYPE_TEST, "com/mycompany/generated")).isFalse();
+  }
 }
@@ -21,6 +21,7 @@ package org.sonar.batch.scan.filesystem;
 
 import com.google.common.base.Charsets;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -69,6 +70,20 @@ public class FileHashDigestTest {
     assertThat(hash1).isNotEqualTo(hash4);
   }
 
+  @Test
+  public void should_normalize_line_ends_of_large_files() throws Exception {
+    // CRLF spans two blocks of characters
+    String prefix = StringUtils.repeat("a", 16 * 1024 - 1);
+
+    File file1 = temp.newFile();
+    FileUtils.write(file1, prefix + "\r\nfoo", Charsets.UTF_8);
+
+    File file2 = temp.newFile();
+    FileUtils.write(file2, prefix + "\nfoo", Charsets.UTF_8);
+
+    assertThat(FileHashDigest.INSTANCE.hash(file1, Charsets.UTF_8)).isEqualTo(FileHashDigest.INSTANCE.hash(file2, Charsets.UTF_8));
+  }
+
   @Test
   public void should_throw_if_file_does_not_exist() throws Exception {
     File tempFolder = temp.newFolder();
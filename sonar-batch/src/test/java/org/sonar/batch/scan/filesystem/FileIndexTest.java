@@ -0,0 +1,215 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.scan.filesystem;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.config.Settings;
+import org.sonar.api.resources.Project;
+import org.sonar.api.scan.filesystem.FileExclusions;
+import org.sonar.api.scan.filesystem.PathResolver;
+import org.sonar.api.scan.filesystem.internal.InputFile;
+import org.sonar.api.scan.filesystem.internal.InputFileFilter;
+import org.sonar.batch.bootstrap.AnalysisMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FileIndexTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  Settings settings = new Settings();
+  LanguageRecognizer languageRecognizer = mock(LanguageRecognizer.class);
+  InputFileCache cache = mock(InputFileCache.class);
+  FileHashes fileHashes = mock(FileHashes.class);
+  List<File> additionalSourceFiles = Collections.emptyList();
+  File baseDir;
+  File srcDir;
+  File testDir;
+
+  @Before
+  public void prepare() throws IOException {
+    baseDir = temp.newFolder();
+    srcDir = new File(baseDir, "src");
+    testDir = new File(baseDir, "test");
+    when(cache.fileRelativePaths("foo")).thenReturn(Sets.<String>newHashSet());
+    when(languageRecognizer.of(any(File.class))).thenReturn("java");
+    when(fileHashes.hash(any(File.class), any(Charset.class))).thenReturn("ABCDE");
+  }
+
+  @Test
+  public void should_not_walk_excluded_directories() throws IOException {
+    settings.setProperty(CoreProperties.PROJECT_EXCLUSIONS_PROPERTY, "**/generated/**");
+    File foo = newFile(srcDir, "org/Foo.java");
+    File generated = newFile(srcDir, "org/generated/Generated.java");
+    File generatedChild = newFile(srcDir, "org/generated/sub/Generated.java");
+
+    index(new ExclusionFilters(new FileExclusions(settings)));
+
+    assertThat(indexedPaths()).containsOnly("src/org/Foo.java");
+    verify(languageRecognizer).of(foo);
+    verify(languageRecognizer, never()).of(generated);
+    verify(languageRecognizer, never()).of(generatedChild);
+    verify(fileHashes, never()).hash(eq(generated), any(Charset.class));
+  }
+
+  @Test
+  public void should_walk_directories_which_files_are_partially_excluded() throws IOException {
+    settings.setProperty(CoreProperties.PROJECT_EXCLUSIONS_PROPERTY, "**/generated/*Dto.java");
+    newFile(srcDir, "org/generated/FooDto.java");
+    newFile(srcDir, "org/generated/Foo.java");
+
+    index(new ExclusionFilters(new FileExclusions(settings)));
+
+    assertThat(indexedPaths()).containsOnly("src/org/generated/Foo.java");
+  }
+
+  @Test
+  public void should_index_same_files_as_without_walk_optimization() throws IOException {
+    settings.setProperty(CoreProperties.PROJECT_INCLUSIONS_PROPERTY, "**/*.java,**/*.xml");
+    settings.setProperty(CoreProperties.PROJECT_EXCLUSIONS_PROPERTY, "**/generated/**,**/*Dto.java,org/legacy/**");
+    settings.setProperty(CoreProperties.PROJECT_TEST_EXCLUSIONS_PROPERTY, "**/fixtures/**");
+    newFile(srcDir, "org/Foo.java");
+    newFile(srcDir, "org/FooDto.java");
+    newFile(srcDir, "org/foo.txt");
+    newFile(srcDir, "org/generated/Generated.java");
+    newFile(srcDir, "org/generated/sub/Generated.java");
+    newFile(srcDir, "org/not_generated/Bar.java");
+    newFile(srcDir, "org/legacy/Legacy.java");
+    newFile(srcDir, "com/org/legacy/NotLegacy.java");
+    newFile(srcDir, "generated/conf.xml");
+    newFile(testDir, "org/FooTest.java");
+    newFile(testDir, "org/fixtures/Fixture.java");
+    newFile(testDir, "org/generated/GeneratedTest.java");
+
+    ExclusionFilters exclusionFilters = new ExclusionFilters(new FileExclusions(settings));
+    index(exclusionFilters);
+    Set<String> optimized = indexedPaths();
+
+    // same filters, but every directory is walked and each file is filtered
+    ExclusionFilters walkAll = spy(exclusionFilters);
+    doReturn(false).when(walkAll).isExcludedDirectory(anyString(), anyString());
+    cache = mock(InputFileCache.class);
+    when(cache.fileRelativePaths("foo")).thenReturn(Sets.<String>newHashSet());
+    index(walkAll);
+    Set<String> notOptimized = indexedPaths();
+
+    assertThat(optimized).isEqualTo(notOptimized);
+    assertThat(optimized).containsOnly("src/org/Foo.java", "src/org/not_generated/Bar.java", "src/com/org/legacy/NotLegacy.java",
+      "test/org/FooTest.java", "test/org/generated/GeneratedTest.java");
+  }
+
+  @Test
+  public void should_cache_files_in_order_of_indexation() throws IOException {
+    // more files than a single batch of concurrent hashing
+    List<File> files = Lists.newArrayList();
+    List<String> expectedPaths = Lists.newArrayList();
+    for (int i = FileIndex.MAX_PENDING_FILES + 500; i > 0; i--) {
+      files.add(newFile(srcDir, "org/Foo" + i + ".java"));
+      expectedPaths.add("src/org/Foo" + i + ".java");
+    }
+    additionalSourceFiles = files;
+
+    index(new ExclusionFilters(new FileExclusions(settings)));
+
+    ArgumentCaptor<InputFile> captor = ArgumentCaptor.forClass(InputFile.class);
+    verify(cache, times(files.size())).put(eq("foo"), captor.capture());
+    List<String> paths = Lists.newArrayList();
+    for (InputFile inputFile : captor.getAllValues()) {
+      paths.add(inputFile.path());
+    }
+    assertThat(paths).isEqualTo(expectedPaths);
+  }
+
+  @Test
+  public void should_propagate_failure_of_hashing() throws IOException {
+    newFile(srcDir, "org/Foo.java");
+    File bar = newFile(srcDir, "org/Bar.java");
+    when(fileHashes.hash(eq(bar), any(Charset.class))).thenThrow(new IllegalStateException("Fail to read file"));
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Fail to read file");
+
+    index(new ExclusionFilters(new FileExclusions(settings)));
+  }
+
+  private void index(ExclusionFilters exclusionFilters) {
+    List<InputFileFilter> filters = Lists.<InputFileFilter>newArrayList(exclusionFilters);
+    FileIndex index = new FileIndex(filters, exclusionFilters, languageRecognizer, cache, fileHashes, new PathResolver(), new Project("foo"));
+    index.index(newFileSystem(index));
+  }
+
+  private DefaultModuleFileSystem newFileSystem(FileIndex index) {
+    ModuleFileSystemInitializer initializer = mock(ModuleFileSystemInitializer.class);
+    when(initializer.baseDir()).thenReturn(baseDir);
+    when(initializer.sourceDirs()).thenReturn(Lists.newArrayList(srcDir));
+    when(initializer.testDirs()).thenReturn(Lists.newArrayList(testDir));
+    when(initializer.binaryDirs()).thenReturn(Collections.<File>emptyList());
+    when(initializer.additionalSourceFiles()).thenReturn(additionalSourceFiles);
+    when(initializer.additionalTestFiles()).thenReturn(Collections.<File>emptyList());
+    return new DefaultModuleFileSystem("foo", settings, index, initializer, mock(AnalysisMode.class));
+  }
+
+  private Set<String> indexedPaths() {
+    ArgumentCaptor<InputFile> captor = ArgumentCaptor.forClass(InputFile.class);
+    verify(cache, atLeastOnce()).put(eq("foo"), captor.capture());
+    Set<String> paths = Sets.newHashSet();
+    for (InputFile inputFile : captor.getAllValues()) {
+      paths.add(inputFile.path());
+    }
+    return paths;
+  }
+
+  private static File newFile(File dir, String path) throws IOException {
+    File file = new File(dir, path);
+    FileUtils.write(file, "content");
+    return file;
+  }
+}
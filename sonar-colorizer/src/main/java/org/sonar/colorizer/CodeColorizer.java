@@ -20,12 +20,28 @@
 package org.sonar.colorizer;
 
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Instances are thread-safe and should be reused: the {@link NotThreadSafeTokenizer}s are cloned once per thread
+ * instead of once per rendering.
+ */
 public class CodeColorizer {
 
   private List<Tokenizer> tokenizers = null;
 
+  private final ThreadLocal<List<Tokenizer>> threadTokenizers = new ThreadLocal<List<Tokenizer>>() {
+    @Override
+    protected List<Tokenizer> initialValue() {
+      List<Tokenizer> result = new ArrayList<Tokenizer>(tokenizers.size());
+      for (Tokenizer tokenizer : tokenizers) {
+        result.add(tokenizer instanceof NotThreadSafeTokenizer ? ((NotThreadSafeTokenizer) tokenizer).clone() : tokenizer);
+      }
+      return result;
+    }
+  };
+
   public CodeColorizer(List<Tokenizer> tokenizers) {
     this.tokenizers = tokenizers;
   }
@@ -39,16 +55,36 @@ public class CodeColorizer {
   }
 
   public String toHtml(Reader code, HtmlOptions options) {
+    StringBuilder output = new StringBuilder();
+    toHtml(code, options, output);
+    return output.toString();
+  }
+
+  /**
+   * Writes the colorized code to the given output, for example a {@link java.io.Writer}.
+   *
+   * @since 4.2
+   */
+  public void toHtml(Reader code, HtmlOptions options, Appendable output) {
     HtmlOptions opts = options == null ? HtmlOptions.DEFAULT : options;
-    return new HtmlRenderer(opts).render(code, tokenizers);
+    boolean rendered = false;
+    try {
+      new HtmlRenderer(opts).render(code, threadTokenizers.get(), output, false);
+      rendered = true;
+    } finally {
+      if (!rendered) {
+        // a failed rendering can leave the tokenizers of this thread in an intermediate state
+        threadTokenizers.remove();
+      }
+    }
   }
 
   public static String javaToHtml(Reader code, HtmlOptions options) {
-    return new CodeColorizer(Format.JAVA).toHtml(code, options);
+    return Format.JAVA.getColorizer().toHtml(code, options);
   }
 
   public static String groovyToHtml(Reader code, HtmlOptions options) {
-    return new CodeColorizer(Format.GROOVY).toHtml(code, options);
+    return Format.GROOVY.getColorizer().toHtml(code, options);
   }
 
   public static String getCss() {
@@ -59,6 +95,7 @@ public class CodeColorizer {
     JAVA(JavaTokenizers.forHtml()), GROOVY(GroovyTokenizers.forHtml());
 
     private List<Tokenizer> tokenizers;
+    private CodeColorizer colorizer;
 
     Format(List<Tokenizer> tokenizers) {
       this.tokenizers = tokenizers;
@@ -67,5 +104,12 @@ public class CodeColorizer {
     public List<Tokenizer> getTokenizers() {
       return tokenizers;
     }
+
+    synchronized CodeColorizer getColorizer() {
+      if (colorizer == null) {
+        colorizer = new CodeColorizer(tokenizers);
+      }
+      return colorizer;
+    }
   }
 }
@@ -19,14 +19,28 @@
  */
 package org.sonar.colorizer;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 public class HtmlCodeBuilder implements Appendable {
 
-  private StringBuilder colorizedCode = new StringBuilder();
+  private final Appendable colorizedCode;
   private Map variables = new HashMap();
 
+  public HtmlCodeBuilder() {
+    this(new StringBuilder());
+  }
+
+  /**
+   * Writes the colorized code directly to the given output instead of keeping it in memory.
+   *
+   * @since 4.2
+   */
+  public HtmlCodeBuilder(Appendable output) {
+    this.colorizedCode = output;
+  }
+
   public Appendable append(CharSequence csq) {
     for (int i = 0; i < csq.length(); i++) {
       append(csq.charAt(i));
@@ -35,14 +49,18 @@ public class HtmlCodeBuilder implements Appendable {
   }
 
   public Appendable append(char c) {
-    if (c == '<') {
-      colorizedCode.append("&lt;");
-    } else if (c == '>') {
-      colorizedCode.append("&gt;");
-    } else if (c == '&') {
-      colorizedCode.append("&amp;");
-    } else {
-      colorizedCode.append(c);
+    try {
+      if (c == '<') {
+        colorizedCode.append("&lt;");
+      } else if (c == '>') {
+        colorizedCode.append("&gt;");
+      } else if (c == '&') {
+        colorizedCode.append("&amp;");
+      } else {
+        colorizedCode.append(c);
+      }
+    } catch (IOException e) {
+      throw new SynhtaxHighlightingException("Can not write colorized code", e);
     }
     return this;
   }
@@ -55,7 +73,11 @@ public class HtmlCodeBuilder implements Appendable {
   }
 
   public void appendWithoutTransforming(String htmlTag) {
-    colorizedCode.append(htmlTag);
+    try {
+      colorizedCode.append(htmlTag);
+    } catch (IOException e) {
+      throw new SynhtaxHighlightingException("Can not write colorized code", e);
+    }
   }
 
   @Override
@@ -63,8 +85,14 @@ public class HtmlCodeBuilder implements Appendable {
     return colorizedCode.toString();
   }
 
+  /**
+   * @throws IllegalStateException if the builder writes to an output which is not a {@link StringBuilder}
+   */
   public StringBuilder getColorizedCode() {
-    return colorizedCode;
+    if (!(colorizedCode instanceof StringBuilder)) {
+      throw new IllegalStateException("Colorized code is written to " + colorizedCode.getClass().getName());
+    }
+    return (StringBuilder) colorizedCode;
   }
 
   /**
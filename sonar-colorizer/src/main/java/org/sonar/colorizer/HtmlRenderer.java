@@ -40,9 +40,24 @@ public class HtmlRenderer extends Renderer {
 
   @Override
   public String render(Reader code, List<? extends Channel<HtmlCodeBuilder>> tokenizers) {
+    StringBuilder output = new StringBuilder();
+    render(code, tokenizers, output);
+    return output.toString();
+  }
+
+  /**
+   * Writes the colorized code to the given output, for example a {@link java.io.Writer}, instead of building a String.
+   *
+   * @since 4.2
+   */
+  public void render(Reader code, List<? extends Channel<HtmlCodeBuilder>> tokenizers, Appendable output) {
+    render(code, tokenizers, output, true);
+  }
+
+  void render(Reader code, List<? extends Channel<HtmlCodeBuilder>> tokenizers, Appendable output, boolean cloneNotThreadSafeTokenizers) {
     try {
-      List<Channel<HtmlCodeBuilder>> allTokenizers = new ArrayList<Channel<HtmlCodeBuilder>>();
-      HtmlCodeBuilder codeBuilder = new HtmlCodeBuilder();
+      List<Channel<HtmlCodeBuilder>> allTokenizers = new ArrayList<Channel<HtmlCodeBuilder>>(tokenizers.size() + 1);
+      HtmlCodeBuilder codeBuilder = new HtmlCodeBuilder(output);
       HtmlDecorator htmlDecorator = new HtmlDecorator(options);
 
       // optimization
@@ -52,12 +67,11 @@ public class HtmlRenderer extends Renderer {
       }
       allTokenizers.addAll(tokenizers);
 
-      new TokenizerDispatcher(allTokenizers).colorize(new CodeReader(code), codeBuilder);
+      new TokenizerDispatcher(allTokenizers, cloneNotThreadSafeTokenizers).colorize(new CodeReader(code), codeBuilder);
       // optimization
       if (options != null && options.isGenerateTable()) {
         codeBuilder.appendWithoutTransforming(htmlDecorator.getTagEndOfFile());
       }
-      return codeBuilder.toString();
     } catch (Exception e) {
       throw new SynhtaxHighlightingException("Can not render code", e);
     }
@@ -61,18 +61,22 @@ public class KeywordsTokenizer extends NotThreadSafeTokenizer {
 
   @Override
   public boolean consume(CodeReader code, HtmlCodeBuilder codeBuilder) {
-    if (code.popTo(matcher, tmpBuilder) > 0) {
-      if (isKeyword(tmpBuilder.toString())) {
-        codeBuilder.appendWithoutTransforming(tagBefore);
-        codeBuilder.append(tmpBuilder);
-        codeBuilder.appendWithoutTransforming(tagAfter);
-      } else {
-        codeBuilder.append(tmpBuilder);
+    try {
+      if (code.popTo(matcher, tmpBuilder) > 0) {
+        if (isKeyword(tmpBuilder.toString())) {
+          codeBuilder.appendWithoutTransforming(tagBefore);
+          codeBuilder.append(tmpBuilder);
+          codeBuilder.appendWithoutTransforming(tagAfter);
+        } else {
+          codeBuilder.append(tmpBuilder);
+        }
+        return true;
       }
+      return false;
+    } finally {
+      // the token must not leak into the next file when the output can not be written
       tmpBuilder.delete(0, tmpBuilder.length());
-      return true;
     }
-    return false;
   }
 
   private boolean isKeyword(String word) {
@@ -47,14 +47,18 @@ public class RegexpTokenizer extends NotThreadSafeTokenizer{
 
   @Override
   public boolean consume(CodeReader code, HtmlCodeBuilder codeBuilder) {
-    if (code.popTo(matcher, tmpBuilder) > 0) {
-      codeBuilder.appendWithoutTransforming(tagBefore);
-      codeBuilder.append(tmpBuilder);
-      codeBuilder.appendWithoutTransforming(tagAfter);
+    try {
+      if (code.popTo(matcher, tmpBuilder) > 0) {
+        codeBuilder.appendWithoutTransforming(tagBefore);
+        codeBuilder.append(tmpBuilder);
+        codeBuilder.appendWithoutTransforming(tagAfter);
+        return true;
+      }
+      return false;
+    } finally {
+      // the token must not leak into the next file when the output can not be written
       tmpBuilder.delete(0, tmpBuilder.length());
-      return true;
     }
-    return false;
   }
 
   @Override
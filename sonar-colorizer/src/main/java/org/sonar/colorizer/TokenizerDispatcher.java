@@ -27,13 +27,23 @@ import java.util.List;
 public class TokenizerDispatcher {
 
   private Channel<HtmlCodeBuilder>[] tokenizers;
+  private final boolean cloneNotThreadSafeTokenizers;
 
   public TokenizerDispatcher(Channel<HtmlCodeBuilder>... tokenizers) {
     this.tokenizers = tokenizers;
+    this.cloneNotThreadSafeTokenizers = true;
   }
 
   public TokenizerDispatcher(List<Channel<HtmlCodeBuilder>> tokenizersArray) {
+    this(tokenizersArray, true);
+  }
+
+  /**
+   * @param cloneNotThreadSafeTokenizers false if the {@link NotThreadSafeTokenizer}s are already confined to the current thread
+   */
+  TokenizerDispatcher(List<Channel<HtmlCodeBuilder>> tokenizersArray, boolean cloneNotThreadSafeTokenizers) {
     this.tokenizers = tokenizersArray.toArray(new Channel[tokenizersArray.size()]);
+    this.cloneNotThreadSafeTokenizers = cloneNotThreadSafeTokenizers;
   }
 
   public final String colorize(String code) {
@@ -43,7 +53,9 @@ public class TokenizerDispatcher {
   }
 
   public final void colorize(CodeReader code, HtmlCodeBuilder colorizedCode) {
-    cloneNotThreadSafeTokenizers();
+    if (cloneNotThreadSafeTokenizers) {
+      cloneNotThreadSafeTokenizers();
+    }
     nextChar:
     while (code.peek() != -1) {
       for (Channel<HtmlCodeBuilder> codeTokenizer : tokenizers) {
@@ -25,6 +25,7 @@ import org.junit.Test;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -122,6 +123,16 @@ public class CodeColorizerTest {
     }
   }
 
+  @Test
+  public void shouldWriteToOutput() throws IOException {
+    CodeColorizer colorizer = new CodeColorizer(CodeColorizer.Format.JAVA);
+    StringWriter output = new StringWriter();
+
+    colorizer.toHtml(readFile("/org/sonar/colorizer/samples/Sample.java"), HtmlOptions.DEFAULT, output);
+
+    assertEquals(CodeColorizer.javaToHtml(readFile("/org/sonar/colorizer/samples/Sample.java"), HtmlOptions.DEFAULT), output.toString());
+  }
+
   @Test
   public void shouldEscapeSpecialCharacters() throws Exception {
 
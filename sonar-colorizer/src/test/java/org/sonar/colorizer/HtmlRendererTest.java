@@ -26,6 +26,7 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.Arrays;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -54,6 +55,16 @@ public class HtmlRendererTest {
     assertThat(html, is("foo(<s>\"&lt;html&gt;\"</s>);"));
   }
 
+  @Test
+  public void renderToWriter() {
+    HtmlRenderer htmlRenderer = new HtmlRenderer(HtmlOptions.ONLY_SYNTAX);
+    StringWriter output = new StringWriter();
+
+    htmlRenderer.render(new StringReader("public class Hello {"), Arrays.asList(javaKeywordTokenizer), output);
+
+    assertThat(output.toString(), is("<span class='k'>public</span> <span class='k'>class</span> Hello {"));
+  }
+
   @Test
   public void renderJavaFile() throws IOException {
     File java = FileUtils.toFile(getClass().getResource("/org/sonar/colorizer/HtmlRendererTest/Sample.java"));
@@ -22,9 +22,12 @@ package org.sonar.colorizer;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.sonar.colorizer.SyntaxHighlighterTestingHarness.failingCodeBuilder;
 import static org.sonar.colorizer.SyntaxHighlighterTestingHarness.highlight;
 
 import org.junit.Test;
+import org.sonar.channel.CodeReader;
 
 public class KeywordsTokenizerTest {
 
@@ -55,4 +58,16 @@ public class KeywordsTokenizerTest {
     assertThat(tokenizer, is(not(cloneTokenizer)));
     assertThat(highlight("public 1234", cloneTokenizer), is("<s>public</s> 1234"));
   }
+
+  @Test
+  public void shouldNotKeepTokenAfterWriteFailure() {
+    KeywordsTokenizer tokenizer = new KeywordsTokenizer("<s>", "</s>", "public");
+    try {
+      tokenizer.consume(new CodeReader("publication"), failingCodeBuilder());
+      fail();
+    } catch (SynhtaxHighlightingException e) {
+      // expected
+    }
+    assertThat(highlight("public", tokenizer), is("<s>public</s>"));
+  }
 }
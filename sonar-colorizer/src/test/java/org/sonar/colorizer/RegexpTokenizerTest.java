@@ -22,9 +22,12 @@ package org.sonar.colorizer;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.sonar.colorizer.SyntaxHighlighterTestingHarness.failingCodeBuilder;
 import static org.sonar.colorizer.SyntaxHighlighterTestingHarness.highlight;
 
 import org.junit.Test;
+import org.sonar.channel.CodeReader;
 
 public class RegexpTokenizerTest {
 
@@ -44,4 +47,15 @@ public class RegexpTokenizerTest {
     assertThat(highlight("public 1234", cloneTokenizer), is("<r>public</r> 1234"));
   }
 
+  @Test
+  public void shouldNotKeepTokenAfterWriteFailure() {
+    RegexpTokenizer tokenizer = new RegexpTokenizer("<r>", "</r>", "[0-9]+");
+    try {
+      tokenizer.consume(new CodeReader("123"), failingCodeBuilder());
+      fail();
+    } catch (SynhtaxHighlightingException e) {
+      // expected
+    }
+    assertThat(highlight("456", tokenizer), is("<r>456</r>"));
+  }
 }
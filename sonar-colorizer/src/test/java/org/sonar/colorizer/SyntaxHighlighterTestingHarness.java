@@ -21,10 +21,31 @@ package org.sonar.colorizer;
 
 import org.sonar.channel.Channel;
 
+import java.io.IOException;
+
 public class SyntaxHighlighterTestingHarness {
 
   public static String highlight(String input, Channel<HtmlCodeBuilder> tokenHighlighter) {
     TokenizerDispatcher syntaxHighlighter = new TokenizerDispatcher(tokenHighlighter);
     return syntaxHighlighter.colorize(input);
   }
+
+  /**
+   * Code builder whose output always fails to be written
+   */
+  public static HtmlCodeBuilder failingCodeBuilder() {
+    return new HtmlCodeBuilder(new Appendable() {
+      public Appendable append(CharSequence csq) throws IOException {
+        throw new IOException("Fail to write");
+      }
+
+      public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        throw new IOException("Fail to write");
+      }
+
+      public Appendable append(char c) throws IOException {
+        throw new IOException("Fail to write");
+      }
+    });
+  }
 }
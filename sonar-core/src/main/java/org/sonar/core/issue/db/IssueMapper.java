@@ -25,6 +25,7 @@ import org.sonar.api.issue.IssueQuery;
 import javax.annotation.Nullable;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 public interface IssueMapper {
@@ -54,4 +55,9 @@ public interface IssueMapper {
   int update(IssueDto issue);
 
   int updateIfBeforeSelectedDate(IssueDto issue);
+
+  /**
+   * Keys, among the given ones, of the issues whose last update date is not the given date
+   */
+  List<String> selectKeysNotUpdatedAt(@Param("keys") Collection<String> keys, @Param("date") Date date);
 }
@@ -20,6 +20,8 @@
 package org.sonar.core.issue.db;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang.time.DateUtils;
 import org.apache.ibatis.session.SqlSession;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.issue.IssueComment;
@@ -32,8 +34,10 @@ import org.sonar.core.persistence.BatchSession;
 import org.sonar.core.persistence.MyBatis;
 
 import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Save issues into database. It is executed :
@@ -46,6 +50,9 @@ import java.util.List;
  */
 public abstract class IssueStorage {
 
+  // maximum number of elements in a SQL "IN" clause on Oracle
+  private static final int MAX_KEYS_PER_QUERY = 1000;
+
   private final MyBatis mybatis;
   private final RuleFinder ruleFinder;
   private final UpdateConflictResolver conflictResolver = new UpdateConflictResolver();
@@ -60,9 +67,10 @@ public abstract class IssueStorage {
   }
 
   public void save(Iterable<DefaultIssue> issues) {
-    // Batch session can not be used for updates. It does not return the number of updated rows,
-    // required for detecting conflicts.
-    Date now = new Date();
+    // Batch session does not return the number of updated rows, so conflicts
+    // with concurrent updates are detected afterwards with a single query per chunk of issues.
+    // Milliseconds are dropped so that the update date can be compared on all databases.
+    Date now = DateUtils.truncate(new Date(), Calendar.SECOND);
     List<DefaultIssue> toBeUpdated = batchInsert(issues, now);
     update(toBeUpdated, now);
   }
@@ -102,34 +110,69 @@ public abstract class IssueStorage {
 
   private void update(List<DefaultIssue> toBeUpdated, Date now) {
     if (!toBeUpdated.isEmpty()) {
-      SqlSession session = mybatis.openSession();
+      List<DefaultIssue> conditionallyUpdated = Lists.newArrayList();
+      SqlSession batchSession = mybatis.openBatchSession();
+      int count = 0;
       try {
-        IssueMapper issueMapper = session.getMapper(IssueMapper.class);
-        IssueChangeMapper issueChangeMapper = session.getMapper(IssueChangeMapper.class);
+        IssueMapper issueMapper = batchSession.getMapper(IssueMapper.class);
+        IssueChangeMapper issueChangeMapper = batchSession.getMapper(IssueChangeMapper.class);
         for (DefaultIssue issue : toBeUpdated) {
-          update(issueMapper, now, issue);
+          if (update(issueMapper, now, issue)) {
+            conditionallyUpdated.add(issue);
+          }
           insertChanges(issueChangeMapper, issue);
+          if (++count >= BatchSession.MAX_BATCH_SIZE) {
+            batchSession.commit();
+            count = 0;
+          }
         }
-        session.commit();
+        batchSession.commit();
       } finally {
-        MyBatis.closeQuietly(session);
+        MyBatis.closeQuietly(batchSession);
       }
+      resolveConflicts(conditionallyUpdated, now);
     }
   }
 
-  private void update(IssueMapper issueMapper, Date now, DefaultIssue issue) {
+  /**
+   * @return true if the update is ignored when the issue has been changed in database since it was selected
+   */
+  private boolean update(IssueMapper issueMapper, Date now, DefaultIssue issue) {
     IssueDto dto = IssueDto.toDtoForUpdate(issue, now);
     if (Issue.STATUS_CLOSED.equals(issue.status()) || issue.selectedAt() == null) {
       // Issue is closed by scan or changed by end-user
       issueMapper.update(dto);
+      return false;
+    }
+    issueMapper.updateIfBeforeSelectedDate(dto);
+    return true;
+  }
 
-    } else {
-      int count = issueMapper.updateIfBeforeSelectedDate(dto);
-      if (count == 0) {
-        // End-user and scan changed the issue at the same time.
-        // See https://jira.codehaus.org/browse/SONAR-4309
-        conflictResolver.resolve(issue, issueMapper);
+  /**
+   * Issues which have been updated by this scan have exactly the update date it wrote. Any other date,
+   * either the previous one or a date set by a concurrent change of end-user, reveals a conflict.
+   */
+  private void resolveConflicts(List<DefaultIssue> conditionallyUpdated, Date now) {
+    if (conditionallyUpdated.isEmpty()) {
+      return;
+    }
+    SqlSession session = mybatis.openSession();
+    try {
+      IssueMapper issueMapper = session.getMapper(IssueMapper.class);
+      for (List<DefaultIssue> partition : Lists.partition(conditionallyUpdated, MAX_KEYS_PER_QUERY)) {
+        Map<String, DefaultIssue> issuesByKey = Maps.newHashMap();
+        for (DefaultIssue issue : partition) {
+          issuesByKey.put(issue.key(), issue);
+        }
+        for (String conflictingKey : issueMapper.selectKeysNotUpdatedAt(issuesByKey.keySet(), now)) {
+          // End-user and scan changed the issue at the same time.
+          // See https://jira.codehaus.org/browse/SONAR-4309
+          conflictResolver.resolve(issuesByKey.get(conflictingKey), issueMapper);
+        }
       }
+      session.commit();
+    } finally {
+      MyBatis.closeQuietly(session);
     }
   }
 
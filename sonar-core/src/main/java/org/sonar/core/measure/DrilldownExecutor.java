@@ -0,0 +1,129 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.dbutils.DbUtils;
+import org.apache.ibatis.session.SqlSession;
+import org.sonar.api.ServerComponent;
+import org.sonar.core.persistence.MyBatis;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Loads the measures of a drilldown column with a single SQL request, sorted and limited by the database.
+ *
+ * @since 4.2
+ */
+public class DrilldownExecutor implements ServerComponent {
+
+  private final MyBatis mybatis;
+
+  public DrilldownExecutor(MyBatis mybatis) {
+    this.mybatis = mybatis;
+  }
+
+  public List<DrilldownRow> execute(DrilldownQuery query) {
+    if (query.getQualifiers().isEmpty() || query.getLimit() <= 0) {
+      return Collections.emptyList();
+    }
+    SqlSession session = null;
+    Connection connection = null;
+    try {
+      session = mybatis.openSession();
+      connection = session.getConnection();
+      return execute(connection, query);
+
+    } catch (SQLException e) {
+      throw new IllegalStateException("Fail to execute drilldown query on snapshot " + query.getRootSnapshotId(), e);
+    } finally {
+      MyBatis.closeQuietly(session);
+      // connection is supposed to be closed by the session
+      DbUtils.closeQuietly(connection);
+    }
+  }
+
+  private List<DrilldownRow> execute(Connection connection, DrilldownQuery query) throws SQLException {
+    PreparedStatement statement = connection.prepareStatement(sql(query));
+    ResultSet rs = null;
+    try {
+      int index = 1;
+      statement.setLong(index++, query.getRootSnapshotId());
+      statement.setBoolean(index++, true);
+      for (String qualifier : query.getQualifiers()) {
+        statement.setString(index++, qualifier);
+      }
+      statement.setString(index++, query.getBasePath() + "%");
+      statement.setInt(index++, query.getMetricId());
+      if (query.getExcludedValue() != null) {
+        statement.setDouble(index++, query.getExcludedValue());
+      }
+      for (Integer id : new Integer[] {query.getRuleId(), query.getCharacteristicId(), query.getPersonId()}) {
+        if (id != null) {
+          statement.setInt(index++, id);
+        }
+      }
+      statement.setMaxRows(query.getLimit());
+      rs = statement.executeQuery();
+
+      List<DrilldownRow> rows = Lists.newArrayList();
+      while (rs.next()) {
+        rows.add(new DrilldownRow(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getDouble(4), rs.getString(5), rs.getString(6), rs.getString(7)));
+      }
+      return rows;
+
+    } finally {
+      DbUtils.closeQuietly(rs);
+      DbUtils.closeQuietly(statement);
+    }
+  }
+
+  static String sql(DrilldownQuery query) {
+    String column = "pm." + query.valueColumn();
+    StringBuilder sb = new StringBuilder(600);
+    sb.append("SELECT pm.id, s.id, s.project_id, ").append(column).append(", pm.text_value, pm.alert_status, pm.alert_text");
+    sb.append(" FROM project_measures pm INNER JOIN snapshots s ON s.id=pm.snapshot_id");
+    sb.append(" WHERE s.root_snapshot_id=? AND s.islast=? AND s.qualifier IN (");
+    for (int i = 0; i < query.getQualifiers().size(); i++) {
+      sb.append(i > 0 ? ",?" : "?");
+    }
+    sb.append(") AND s.path LIKE ? AND pm.metric_id=? AND ").append(column).append(" IS NOT NULL");
+    if (query.getExcludedValue() != null) {
+      sb.append(" AND ").append(column).append("<>?");
+    }
+    if (query.isExcludeZeroValue()) {
+      sb.append(" AND ").append(column).append("<>0");
+    }
+    appendIdCondition(sb, "pm.rule_id", query.getRuleId());
+    appendIdCondition(sb, "pm.characteristic_id", query.getCharacteristicId());
+    appendIdCondition(sb, "pm.person_id", query.getPersonId());
+    sb.append(" ORDER BY ").append(column).append(query.isDescending() ? " DESC" : " ASC");
+    return sb.toString();
+  }
+
+  private static void appendIdCondition(StringBuilder sb, String column, Integer id) {
+    sb.append(" AND ").append(column).append(id == null ? " IS NULL" : "=?");
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Measures of a metric on the descendants of a snapshot, as displayed in the columns of drilldown pages.
+ *
+ * @since 4.2
+ */
+public class DrilldownQuery {
+
+  private long rootSnapshotId;
+  private String basePath;
+  private Collection<String> qualifiers = Collections.emptyList();
+  private int metricId;
+  private Integer period = null;
+  private Double excludedValue = null;
+  private boolean excludeZeroValue = false;
+  private Integer ruleId = null;
+  private Integer characteristicId = null;
+  private Integer personId = null;
+  private boolean descending = false;
+  private int limit = 200;
+
+  public long getRootSnapshotId() {
+    return rootSnapshotId;
+  }
+
+  public DrilldownQuery setRootSnapshotId(long rootSnapshotId) {
+    this.rootSnapshotId = rootSnapshotId;
+    return this;
+  }
+
+  public String getBasePath() {
+    return basePath;
+  }
+
+  /**
+   * Path of the descendants, for example "101.102." to get the snapshots below the snapshot 102.
+   */
+  public DrilldownQuery setBasePath(String basePath) {
+    this.basePath = basePath;
+    return this;
+  }
+
+  public Collection<String> getQualifiers() {
+    return qualifiers;
+  }
+
+  public DrilldownQuery setQualifiers(Collection<String> qualifiers) {
+    this.qualifiers = qualifiers;
+    return this;
+  }
+
+  public int getMetricId() {
+    return metricId;
+  }
+
+  public DrilldownQuery setMetricId(int metricId) {
+    this.metricId = metricId;
+    return this;
+  }
+
+  @CheckForNull
+  public Integer getPeriod() {
+    return period;
+  }
+
+  /**
+   * Index of the differential period, between 1 and 5. Variations are then loaded instead of values.
+   */
+  public DrilldownQuery setPeriod(@Nullable Integer period) {
+    Preconditions.checkArgument(period == null || (period >= 1 && period <= 5), "Bad period index: " + period);
+    this.period = period;
+    return this;
+  }
+
+  @CheckForNull
+  public Double getExcludedValue() {
+    return excludedValue;
+  }
+
+  /**
+   * Usually the best value of the metric
+   */
+  public DrilldownQuery setExcludedValue(@Nullable Double excludedValue) {
+    this.excludedValue = excludedValue;
+    return this;
+  }
+
+  public boolean isExcludeZeroValue() {
+    return excludeZeroValue;
+  }
+
+  public DrilldownQuery setExcludeZeroValue(boolean excludeZeroValue) {
+    this.excludeZeroValue = excludeZeroValue;
+    return this;
+  }
+
+  @CheckForNull
+  public Integer getRuleId() {
+    return ruleId;
+  }
+
+  public DrilldownQuery setRuleId(@Nullable Integer ruleId) {
+    this.ruleId = ruleId;
+    return this;
+  }
+
+  @CheckForNull
+  public Integer getCharacteristicId() {
+    return characteristicId;
+  }
+
+  public DrilldownQuery setCharacteristicId(@Nullable Integer characteristicId) {
+    this.characteristicId = characteristicId;
+    return this;
+  }
+
+  @CheckForNull
+  public Integer getPersonId() {
+    return personId;
+  }
+
+  public DrilldownQuery setPersonId(@Nullable Integer personId) {
+    this.personId = personId;
+    return this;
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+  public DrilldownQuery setDescending(boolean descending) {
+    this.descending = descending;
+    return this;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public DrilldownQuery setLimit(int limit) {
+    this.limit = limit;
+    return this;
+  }
+
+  String valueColumn() {
+    return period == null ? "value" : ("variation_value_" + period);
+  }
+}
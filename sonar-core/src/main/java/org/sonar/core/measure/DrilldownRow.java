@@ -0,0 +1,81 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * @since 4.2
+ */
+public class DrilldownRow {
+  private final long measureId;
+  private final long snapshotId;
+  private final long resourceId;
+  private final double value;
+  private final String textValue;
+  private final String alertStatus;
+  private final String alertText;
+
+  DrilldownRow(long measureId, long snapshotId, long resourceId, double value,
+               @Nullable String textValue, @Nullable String alertStatus, @Nullable String alertText) {
+    this.measureId = measureId;
+    this.snapshotId = snapshotId;
+    this.resourceId = resourceId;
+    this.value = value;
+    this.textValue = textValue;
+    this.alertStatus = alertStatus;
+    this.alertText = alertText;
+  }
+
+  public long getMeasureId() {
+    return measureId;
+  }
+
+  public long getSnapshotId() {
+    return snapshotId;
+  }
+
+  public long getResourceId() {
+    return resourceId;
+  }
+
+  /**
+   * The value, or the variation if the query is on a differential period
+   */
+  public double getValue() {
+    return value;
+  }
+
+  @CheckForNull
+  public String getTextValue() {
+    return textValue;
+  }
+
+  @CheckForNull
+  public String getAlertStatus() {
+    return alertStatus;
+  }
+
+  @CheckForNull
+  public String getAlertText() {
+    return alertText;
+  }
+}
@@ -19,6 +19,8 @@
  */
 package org.sonar.core.resource;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
@@ -27,11 +29,22 @@ import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.Scopes;
 import org.sonar.core.persistence.MyBatis;
 
+import javax.annotation.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 public class ResourceIndexerDao {
 
   private static final String SELECT_RESOURCES = "org.sonar.core.resource.ResourceIndexerMapper.selectResources";
   public static final int MINIMUM_KEY_SIZE = 3;
   public static final int SINGLE_INDEX_SIZE = 2;
+  private static final int INDEX_PROJECTS_THREADS = 4;
 
   // The scopes and qualifiers that are not in the following constants are not indexed at all.
   // Directories and packages are explicitly excluded.
@@ -64,23 +77,43 @@ public class ResourceIndexerDao {
 
   /**
    * This method is reentrant. It can be executed even if some projects are already indexed.
+   * Root projects are indexed in parallel, each one in its own transaction.
    */
   public ResourceIndexerDao indexProjects() {
-    final SqlSession session = mybatis.openBatchSession();
+    List<Integer> rootProjectIds;
+    SqlSession session = mybatis.openSession();
     try {
-      final ResourceIndexerMapper mapper = session.getMapper(ResourceIndexerMapper.class);
-      session.select("org.sonar.core.resource.ResourceIndexerMapper.selectRootProjectIds", /* workaround to get booleans */ResourceIndexerQuery.create(), new ResultHandler() {
-        public void handleResult(ResultContext context) {
-          Integer rootProjectId = (Integer) context.getResultObject();
-          doIndexProject(rootProjectId, session, mapper);
-          session.commit();
-        }
-      });
+      rootProjectIds = session.selectList("org.sonar.core.resource.ResourceIndexerMapper.selectRootProjectIds", /* workaround to get booleans */ResourceIndexerQuery.create());
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+    if (rootProjectIds.isEmpty()) {
       return this;
+    }
 
+    List<Callable<Object>> tasks = Lists.newArrayList();
+    for (final Integer rootProjectId : rootProjectIds) {
+      tasks.add(new Callable<Object>() {
+        public Object call() {
+          indexProject(rootProjectId);
+          return null;
+        }
+      });
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(INDEX_PROJECTS_THREADS, tasks.size()));
+    try {
+      for (Future<Object> result : executor.invokeAll(tasks)) {
+        result.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Indexing of projects has been interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Fail to index projects", e.getCause());
     } finally {
-      MyBatis.closeQuietly(session);
+      executor.shutdownNow();
     }
+    return this;
   }
 
   private void doIndexProject(int rootProjectId, SqlSession session, final ResourceIndexerMapper mapper) {
@@ -99,7 +132,13 @@ public class ResourceIndexerDao {
     });
 
     // some resources can be renamed, so index must be regenerated
-    // -> delete existing rows and create them again
+    // -> delete existing rows and create them again, only if name, qualifier or root project changed
+    final Map<Long, ResourceIndexDto> masterIndexes = Maps.newHashMap();
+    List<ResourceIndexDto> dtos = session.selectList("org.sonar.core.resource.ResourceIndexerMapper.selectMasterIndexesByRootProjectId", rootProjectId);
+    for (ResourceIndexDto dto : dtos) {
+      masterIndexes.put(dto.getResourceId(), dto);
+    }
+
     query = ResourceIndexerQuery.create()
       .setNonIndexedOnly(false)
       .setQualifiers(RENAMABLE_QUALIFIERS)
@@ -110,12 +149,22 @@ public class ResourceIndexerDao {
       public void handleResult(ResultContext context) {
         ResourceDto resource = (ResourceDto) context.getResultObject();
 
-        mapper.deleteByResourceId(resource.getId());
-        doIndex(resource, mapper);
+        if (!isUpToDate(resource, masterIndexes.get(resource.getId()))) {
+          mapper.deleteByResourceId(resource.getId());
+          doIndex(resource, mapper);
+        }
       }
     });
   }
 
+  private static boolean isUpToDate(ResourceDto resource, @Nullable ResourceIndexDto masterIndex) {
+    return masterIndex != null
+      && StringUtils.equals(nameToKey(resource.getName()), masterIndex.getKey())
+      && StringUtils.equals(resource.getQualifier(), masterIndex.getQualifier())
+      && resource.getRootId() != null && resource.getRootId() == masterIndex.getRootProjectId()
+      && resource.getName().length() == masterIndex.getNameSize();
+  }
+
   void doIndex(ResourceDto resource, ResourceIndexerMapper mapper) {
     String key = nameToKey(resource.getName());
     if (key.length() >= MINIMUM_KEY_SIZE || key.length() == SINGLE_INDEX_SIZE) {
@@ -43,6 +43,18 @@ class CharactersReader {
     this.openTags = new ArrayDeque<String>();
   }
 
+  /**
+   * Reader of a text which does not start at the beginning of the original stream.
+   *
+   * @param currentIndex index, in the original stream, of the character preceding the text
+   * @param currentValue value of the character preceding the text
+   */
+  CharactersReader(BufferedReader stringBuffer, int currentIndex, int currentValue) {
+    this(stringBuffer);
+    this.currentIndex = currentIndex;
+    this.currentValue = currentValue;
+  }
+
   boolean readNextChar() throws IOException {
     previousValue = currentValue;
     currentValue = stringBuffer.read();
@@ -0,0 +1,343 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.source;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.ServerComponent;
+import org.sonar.api.config.Settings;
+import org.sonar.api.platform.ServerFileSystem;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of the decorated lines returned by {@link HtmlSourceDecorator}, keyed by snapshot id.
+ * Snapshots are immutable, so entries never have to be invalidated.
+ * <p/>
+ * The size of the cache is the approximate memory used by the cached lines. When enabled, entries evicted
+ * from memory are spilled to disk under the data directory of the server, so that they can be reloaded without
+ * querying the database and decorating the source again. A spilled entry is deleted from disk as soon as it is
+ * reloaded in memory, and the oldest spilled entries are deleted when the spill directory exceeds its maximum size.
+ *
+ * @since 4.2
+ */
+public class DecoratedSourceCache implements ServerComponent {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DecoratedSourceCache.class);
+
+  public static final String MAX_SIZE_PROPERTY = "sonar.web.sourceCache.maxSizeInMb";
+  public static final int DEFAULT_MAX_SIZE_IN_MB = 32;
+  public static final String DISK_SPILL_PROPERTY = "sonar.web.sourceCache.diskSpill";
+  public static final String MAX_DISK_SIZE_PROPERTY = "sonar.web.sourceCache.maxDiskSizeInMb";
+  public static final int DEFAULT_MAX_DISK_SIZE_IN_MB = 256;
+
+  /**
+   * Cached when the snapshot has no highlighting data, in order to not query the database again.
+   */
+  private static final List<String> NO_DECORATION = Collections.unmodifiableList(new ArrayList<String>());
+
+  // object headers and references, in bytes
+  private static final int ENTRY_OVERHEAD = 64;
+  private static final int LINE_OVERHEAD = 48;
+
+  private final long maxWeight;
+  private final File spillDir;
+  private final LinkedHashMap<Long, List<String>> entries = new LinkedHashMap<Long, List<String>>(16, 0.75f, true);
+  private long weight = 0L;
+
+  private final long maxSpillWeight;
+  // size in bytes of the spilled files, from the oldest to the newest
+  private final LinkedHashMap<Long, Long> spilled = new LinkedHashMap<Long, Long>();
+  private long spillWeight = 0L;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong diskHits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  public DecoratedSourceCache(Settings settings, ServerFileSystem fileSystem) {
+    this(sizeInBytes(settings, MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE_IN_MB),
+      settings.getBoolean(DISK_SPILL_PROPERTY) ? new File(fileSystem.getHomeDir(), "data/decorated_sources") : null,
+      sizeInBytes(settings, MAX_DISK_SIZE_PROPERTY, DEFAULT_MAX_DISK_SIZE_IN_MB));
+  }
+
+  @VisibleForTesting
+  DecoratedSourceCache(long maxWeight, @Nullable File spillDir, long maxSpillWeight) {
+    this.maxWeight = maxWeight;
+    this.spillDir = spillDir;
+    this.maxSpillWeight = maxSpillWeight;
+  }
+
+  private static long sizeInBytes(Settings settings, String property, int defaultSizeInMb) {
+    int sizeInMb = settings.hasKey(property) ? settings.getInt(property) : defaultSizeInMb;
+    if (sizeInMb < 0) {
+      throw new IllegalArgumentException(String.format("Bad value of %s: %d", property, sizeInMb));
+    }
+    return sizeInMb * 1024L * 1024L;
+  }
+
+  public void start() {
+    if (spillDir != null) {
+      // entries spilled by a previous server instance are dropped, so that disk usage stays bounded
+      FileUtils.deleteQuietly(spillDir);
+      try {
+        FileUtils.forceMkdir(spillDir);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to create directory " + spillDir, e);
+      }
+      LOG.info("Decorated sources are spilled to {}", spillDir);
+    }
+  }
+
+  public void stop() {
+    if (spillDir != null) {
+      FileUtils.deleteQuietly(spillDir);
+      synchronized (spilled) {
+        spilled.clear();
+        spillWeight = 0L;
+      }
+    }
+  }
+
+  /**
+   * @return the decorated lines, {@link #NO_DECORATION} if the snapshot is known to have no decoration,
+   * or null if the snapshot is not in cache.
+   */
+  @CheckForNull
+  List<String> get(long snapshotId) {
+    List<String> lines;
+    synchronized (this) {
+      lines = entries.get(snapshotId);
+    }
+    if (lines != null) {
+      hits.incrementAndGet();
+      return lines;
+    }
+    lines = readSpilled(snapshotId);
+    if (lines != null) {
+      diskHits.incrementAndGet();
+      put(snapshotId, lines);
+      return lines;
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  void put(long snapshotId, @Nullable List<String> lines) {
+    List<String> value = lines == null || isNoDecoration(lines) ? NO_DECORATION : Collections.unmodifiableList(new ArrayList<String>(lines));
+    long entryWeight = weigh(value);
+    if (entryWeight > maxWeight) {
+      return;
+    }
+    List<Map.Entry<Long, List<String>>> evicted = new ArrayList<Map.Entry<Long, List<String>>>();
+    synchronized (this) {
+      List<String> previous = entries.put(snapshotId, value);
+      if (previous != null) {
+        weight -= weigh(previous);
+      }
+      weight += entryWeight;
+      Iterator<Map.Entry<Long, List<String>>> it = entries.entrySet().iterator();
+      while (weight > maxWeight && it.hasNext()) {
+        Map.Entry<Long, List<String>> eldest = it.next();
+        weight -= weigh(eldest.getValue());
+        evicted.add(eldest);
+        it.remove();
+      }
+    }
+    evictions.addAndGet(evicted.size());
+    // disk I/O is done outside of the lock
+    for (Map.Entry<Long, List<String>> entry : evicted) {
+      spill(entry.getKey(), entry.getValue());
+    }
+  }
+
+  static boolean isNoDecoration(List<String> lines) {
+    return lines == NO_DECORATION;
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getDiskHitCount() {
+    return diskHits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  /**
+   * Ratio of requests served from memory or disk, between 0.0 and 1.0.
+   */
+  public double getHitRate() {
+    long requests = hits.get() + diskHits.get() + misses.get();
+    return requests == 0L ? 1.0 : (double) (hits.get() + diskHits.get()) / requests;
+  }
+
+  public synchronized long getSizeInBytes() {
+    return weight;
+  }
+
+  public synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  public long getDiskSizeInBytes() {
+    synchronized (spilled) {
+      return spillWeight;
+    }
+  }
+
+  private static long weigh(List<String> lines) {
+    long result = ENTRY_OVERHEAD;
+    for (String line : lines) {
+      result += LINE_OVERHEAD + 2L * line.length();
+    }
+    return result;
+  }
+
+  private File spillFile(long snapshotId) {
+    return new File(spillDir, snapshotId + ".bin");
+  }
+
+  private void spill(long snapshotId, List<String> lines) {
+    if (spillDir == null) {
+      return;
+    }
+    File file = spillFile(snapshotId);
+    if (file.exists()) {
+      return;
+    }
+    File tmpFile = new File(spillDir, snapshotId + ".tmp" + Thread.currentThread().getId());
+    DataOutputStream output = null;
+    try {
+      output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+      output.writeBoolean(isNoDecoration(lines));
+      output.writeInt(lines.size());
+      for (String line : lines) {
+        byte[] bytes = line.getBytes("UTF-8");
+        output.writeInt(bytes.length);
+        output.write(bytes);
+      }
+      output.close();
+      if (tmpFile.renameTo(file)) {
+        addSpilled(snapshotId, file.length());
+      } else {
+        FileUtils.deleteQuietly(tmpFile);
+      }
+    } catch (IOException e) {
+      LOG.warn("Fail to spill decorated source of snapshot " + snapshotId + " to disk", e);
+      IOUtils.closeQuietly(output);
+      FileUtils.deleteQuietly(tmpFile);
+    }
+  }
+
+  private void addSpilled(long snapshotId, long fileSize) {
+    List<Long> deleted = new ArrayList<Long>();
+    synchronized (spilled) {
+      spilled.put(snapshotId, fileSize);
+      spillWeight += fileSize;
+      Iterator<Map.Entry<Long, Long>> it = spilled.entrySet().iterator();
+      while (spillWeight > maxSpillWeight && it.hasNext()) {
+        Map.Entry<Long, Long> eldest = it.next();
+        spillWeight -= eldest.getValue();
+        deleted.add(eldest.getKey());
+        it.remove();
+      }
+    }
+    for (Long id : deleted) {
+      FileUtils.deleteQuietly(spillFile(id));
+    }
+  }
+
+  private void removeSpilled(long snapshotId) {
+    synchronized (spilled) {
+      Long fileSize = spilled.remove(snapshotId);
+      if (fileSize != null) {
+        spillWeight -= fileSize;
+      }
+    }
+    FileUtils.deleteQuietly(spillFile(snapshotId));
+  }
+
+  /**
+   * The file is deleted once read, as the entry is put back in memory.
+   */
+  @CheckForNull
+  private List<String> readSpilled(long snapshotId) {
+    if (spillDir == null) {
+      return null;
+    }
+    File file = spillFile(snapshotId);
+    if (!file.exists()) {
+      return null;
+    }
+    DataInputStream input = null;
+    try {
+      input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      if (input.readBoolean()) {
+        return NO_DECORATION;
+      }
+      int size = input.readInt();
+      List<String> lines = new ArrayList<String>(size);
+      for (int i = 0; i < size; i++) {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        lines.add(new String(bytes, "UTF-8"));
+      }
+      return lines;
+    } catch (FileNotFoundException e) {
+      // deleted by a concurrent request
+      return null;
+    } catch (IOException e) {
+      LOG.warn("Fail to read decorated source of snapshot " + snapshotId + " from disk", e);
+      return null;
+    } finally {
+      IOUtils.closeQuietly(input);
+      removeSpilled(snapshotId);
+    }
+  }
+}
@@ -22,7 +22,8 @@ package org.sonar.core.source;
 import com.google.common.collect.Lists;
 
 import java.util.Arrays;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 class DecorationDataHolder {
@@ -32,10 +33,17 @@ class DecorationDataHolder {
   private static final String SYMBOL_PREFIX = "sym-";
   private static final String HIGHLIGHTABLE = "sym";
 
+  private static final Comparator<OpeningHtmlTag> BY_START_OFFSET = new Comparator<OpeningHtmlTag>() {
+    public int compare(OpeningHtmlTag left, OpeningHtmlTag right) {
+      return left.getStartOffset() < right.getStartOffset() ? -1 : (left.getStartOffset() == right.getStartOffset() ? 0 : 1);
+    }
+  };
+
   private List<OpeningHtmlTag> openingTagsEntries;
   private int openingTagsIndex;
   private List<Integer> closingTagsOffsets;
   private int closingTagsIndex;
+  private boolean sorted = true;
 
   DecorationDataHolder() {
     openingTagsEntries = Lists.newArrayList();
@@ -58,16 +66,19 @@ class DecorationDataHolder {
     String[] rules = syntaxHighlightingRules.split(ENTITY_SEPARATOR);
     for (String rule : rules) {
       String[] ruleFields = rule.split(FIELD_SEPARATOR);
-      insertAndPreserveOrder(new OpeningHtmlTag(Integer.parseInt(ruleFields[0]), ruleFields[2]), openingTagsEntries);
-      insertAndPreserveOrder(Integer.parseInt(ruleFields[1]), closingTagsOffsets);
+      openingTagsEntries.add(new OpeningHtmlTag(Integer.parseInt(ruleFields[0]), ruleFields[2]));
+      closingTagsOffsets.add(Integer.parseInt(ruleFields[1]));
     }
+    sorted = false;
   }
 
   List<OpeningHtmlTag> getOpeningTagsEntries() {
+    sortIfNeeded();
     return openingTagsEntries;
   }
 
   OpeningHtmlTag getCurrentOpeningTagEntry() {
+    sortIfNeeded();
     return openingTagsIndex < openingTagsEntries.size() ? openingTagsEntries.get(openingTagsIndex) : null;
   }
 
@@ -76,10 +87,12 @@ class DecorationDataHolder {
   }
 
   List<Integer> getClosingTagsOffsets() {
+    sortIfNeeded();
     return closingTagsOffsets;
   }
 
   int getCurrentClosingTagOffset() {
+    sortIfNeeded();
     return closingTagsIndex < closingTagsOffsets.size() ? closingTagsOffsets.get(closingTagsIndex) : -1;
   }
 
@@ -91,26 +104,21 @@ class DecorationDataHolder {
     for (String symbolOccurrence : symbolOccurrences) {
       int occurrenceStartOffset = Integer.parseInt(symbolOccurrence);
       int occurrenceEndOffset = occurrenceStartOffset + symbolLength;
-      insertAndPreserveOrder(new OpeningHtmlTag(occurrenceStartOffset, SYMBOL_PREFIX + declarationStartOffset + " " + HIGHLIGHTABLE), openingTagsEntries);
-      insertAndPreserveOrder(occurrenceEndOffset, closingTagsOffsets);
-    }
-  }
-
-  private void insertAndPreserveOrder(OpeningHtmlTag newEntry, List<OpeningHtmlTag> openingHtmlTags) {
-    int insertionIndex = 0;
-    Iterator<OpeningHtmlTag> tagIterator = openingHtmlTags.iterator();
-    while (tagIterator.hasNext() && tagIterator.next().getStartOffset() <= newEntry.getStartOffset()) {
-      insertionIndex++;
+      openingTagsEntries.add(new OpeningHtmlTag(occurrenceStartOffset, SYMBOL_PREFIX + declarationStartOffset + " " + HIGHLIGHTABLE));
+      closingTagsOffsets.add(occurrenceEndOffset);
     }
-    openingHtmlTags.add(insertionIndex, newEntry);
+    sorted = false;
   }
 
-  private void insertAndPreserveOrder(int newOffset, List<Integer> orderedOffsets) {
-    int insertionIndex = 0;
-    Iterator<Integer> entriesIterator = orderedOffsets.iterator();
-    while (entriesIterator.hasNext() && entriesIterator.next() <= newOffset) {
-      insertionIndex++;
+  /**
+   * Entries are sorted once all data are loaded rather than on each insertion. The sort is stable, so entries
+   * sharing the same offset keep their loading order.
+   */
+  private void sortIfNeeded() {
+    if (!sorted) {
+      Collections.sort(openingTagsEntries, BY_START_OFFSET);
+      Collections.sort(closingTagsOffsets);
+      sorted = true;
     }
-    orderedOffsets.add(insertionIndex, newOffset);
   }
 }
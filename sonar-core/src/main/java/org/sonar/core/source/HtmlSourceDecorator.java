@@ -28,6 +28,9 @@ import org.sonar.core.source.jdbc.SnapshotDataDao;
 import org.sonar.core.source.jdbc.SnapshotDataDto;
 import org.sonar.core.source.jdbc.SnapshotSourceDao;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
 import java.util.Collection;
 import java.util.List;
 
@@ -38,19 +41,75 @@ public class HtmlSourceDecorator implements ServerComponent {
 
   private final SnapshotSourceDao snapshotSourceDao;
   private final SnapshotDataDao snapshotDataDao;
+  private final DecoratedSourceCache cache;
 
   public HtmlSourceDecorator(MyBatis myBatis) {
+    this(myBatis, null);
+  }
+
+  /**
+   * @since 4.2
+   */
+  public HtmlSourceDecorator(MyBatis myBatis, @Nullable DecoratedSourceCache cache) {
     this.snapshotSourceDao = new SnapshotSourceDao(myBatis);
     this.snapshotDataDao = new SnapshotDataDao(myBatis);
+    this.cache = cache;
   }
 
   @VisibleForTesting
   HtmlSourceDecorator(SnapshotSourceDao snapshotSourceDao, SnapshotDataDao snapshotDataDao) {
+    this(snapshotSourceDao, snapshotDataDao, null);
+  }
+
+  @VisibleForTesting
+  HtmlSourceDecorator(SnapshotSourceDao snapshotSourceDao, SnapshotDataDao snapshotDataDao, @Nullable DecoratedSourceCache cache) {
     this.snapshotSourceDao = snapshotSourceDao;
     this.snapshotDataDao= snapshotDataDao;
+    this.cache = cache;
   }
 
+  @CheckForNull
   public List<String> getDecoratedSourceAsHtml(long snapshotId) {
+    if (cache == null) {
+      return decorate(snapshotId);
+    }
+    List<String> cachedLines = cache.get(snapshotId);
+    if (cachedLines != null) {
+      return DecoratedSourceCache.isNoDecoration(cachedLines) ? null : cachedLines;
+    }
+    List<String> lines = decorate(snapshotId);
+    cache.put(snapshotId, lines);
+    return lines;
+  }
+
+  /**
+   * Decorated lines between <code>from</code> and <code>to</code> (1-based, inclusive). When the cache is enabled,
+   * the whole source is decorated and cached on the first call, so that the next ranges of the same snapshot
+   * are served from the cache. Otherwise only the requested lines are decorated.
+   *
+   * @return null if the snapshot has no highlighting data
+   * @since 4.2
+   */
+  @CheckForNull
+  public List<String> getDecoratedSourceAsHtml(long snapshotId, int from, int to) {
+    if (cache == null) {
+      return decorate(snapshotId, from, to);
+    }
+    List<String> lines = getDecoratedSourceAsHtml(snapshotId);
+    if (lines == null) {
+      return null;
+    }
+    int fromIndex = Math.min(Math.max(from, 1) - 1, lines.size());
+    return lines.subList(fromIndex, Math.max(fromIndex, Math.min(to, lines.size())));
+  }
+
+  @CheckForNull
+  private List<String> decorate(long snapshotId) {
+    return decorate(snapshotId, 1, Integer.MAX_VALUE);
+  }
+
+  @CheckForNull
+  private List<String> decorate(long snapshotId, int from, int to) {
     List<String> highlightingDataTypes = Lists.newArrayList(SnapshotDataTypes.SYNTAX_HIGHLIGHTING,
       SnapshotDataTypes.SYMBOL_HIGHLIGHTING);
 
@@ -65,7 +124,7 @@ public class HtmlSourceDecorator implements ServerComponent {
         }
 
         HtmlTextDecorator textDecorator = new HtmlTextDecorator();
-        return textDecorator.decorateTextWithHtml(snapshotSource, decorationDataHolder);
+        return textDecorator.decorateTextWithHtml(snapshotSource, decorationDataHolder, from, to);
       }
     }
     return null;
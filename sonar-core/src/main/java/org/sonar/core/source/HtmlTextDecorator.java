@@ -46,21 +46,47 @@ class HtmlTextDecorator {
   static final String ENCODED_AMPERSAND = "&amp;";
 
   List<String> decorateTextWithHtml(String text, DecorationDataHolder decorationDataHolder) {
+    return decorateTextWithHtml(text, decorationDataHolder, 1, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Decorates only the lines between <code>from</code> and <code>to</code> (1-based, inclusive). Characters
+   * preceding the first line are not read, only the tags which are still open at this point are computed.
+   *
+   * @since 4.2
+   */
+  List<String> decorateTextWithHtml(String text, DecorationDataHolder decorationDataHolder, int from, int to) {
 
     StringBuilder currentHtmlLine = new StringBuilder();
     List<String> decoratedHtmlLines = Lists.newArrayList();
 
+    int startOffset = from <= 1 ? 0 : getLineStartOffset(text, from);
+    if (startOffset < 0 || to < from) {
+      return decoratedHtmlLines;
+    }
+    int currentLine = Math.max(from - 1, 1);
+
     BufferedReader stringBuffer = null;
 
     try {
-      stringBuffer = new BufferedReader(new StringReader(text));
-
-      CharactersReader charsReader = new CharactersReader(stringBuffer);
+      stringBuffer = new BufferedReader(new StringReader(startOffset == 0 ? text : text.substring(startOffset)));
+
+      CharactersReader charsReader;
+      if (startOffset == 0) {
+        charsReader = new CharactersReader(stringBuffer);
+      } else {
+        charsReader = new CharactersReader(stringBuffer, startOffset - 1, text.charAt(startOffset - 1));
+        skipTagsBefore(startOffset, charsReader, decorationDataHolder);
+      }
 
       while (charsReader.readNextChar()) {
 
         if (shouldStartNewLine(charsReader)) {
-          decoratedHtmlLines.add(currentHtmlLine.toString());
+          addLine(decoratedHtmlLines, currentHtmlLine, currentLine, from);
+          currentLine++;
+          if (currentLine > to) {
+            return decoratedHtmlLines;
+          }
           currentHtmlLine = new StringBuilder();
           if (shouldReopenPendingTags(charsReader)) {
             reopenCurrentSyntaxTags(charsReader, currentHtmlLine);
@@ -86,10 +112,12 @@ class HtmlTextDecorator {
       closeCurrentSyntaxTags(charsReader, currentHtmlLine);
 
       if (shouldStartNewLine(charsReader)) {
-        decoratedHtmlLines.add(currentHtmlLine.toString());
-        decoratedHtmlLines.add("");
+        addLine(decoratedHtmlLines, currentHtmlLine, currentLine, from);
+        if (currentLine < to) {
+          decoratedHtmlLines.add("");
+        }
       } else if (currentHtmlLine.length() > 0) {
-        decoratedHtmlLines.add(currentHtmlLine.toString());
+        addLine(decoratedHtmlLines, currentHtmlLine, currentLine, from);
       }
 
     } catch (IOException exception) {
@@ -103,6 +131,51 @@ class HtmlTextDecorator {
     return decoratedHtmlLines;
   }
 
+  private void addLine(List<String> decoratedHtmlLines, StringBuilder currentHtmlLine, int currentLine, int from) {
+    if (currentLine >= from) {
+      decoratedHtmlLines.add(currentHtmlLine.toString());
+    }
+  }
+
+  /**
+   * @return the offset of the first character of the line, or -1 if the text has less lines
+   */
+  private int getLineStartOffset(String text, int line) {
+    int currentLine = 1;
+    for (int i = 1; i <= text.length(); i++) {
+      char previous = text.charAt(i - 1);
+      boolean newLine = previous == LF_END_OF_LINE || (previous == CR_END_OF_LINE && (i == text.length() || text.charAt(i) != LF_END_OF_LINE));
+      if (newLine) {
+        currentLine++;
+        if (currentLine == line) {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Replays the opening and closing of tags located before the given offset, without generating any HTML.
+   */
+  private void skipTagsBefore(int offset, CharactersReader charsReader, DecorationDataHolder dataHolder) {
+    while (true) {
+      int closingOffset = dataHolder.getCurrentClosingTagOffset();
+      OpeningHtmlTag openingTag = dataHolder.getCurrentOpeningTagEntry();
+      boolean hasTagToClose = closingOffset >= 0 && closingOffset < offset;
+      boolean hasTagToOpen = openingTag != null && openingTag.getStartOffset() < offset;
+      if (hasTagToClose && (!hasTagToOpen || closingOffset <= openingTag.getStartOffset())) {
+        charsReader.removeLastOpenTag();
+        dataHolder.nextClosingTagOffset();
+      } else if (hasTagToOpen) {
+        charsReader.registerOpenTag(openingTag.getCssClass());
+        dataHolder.nextOpeningTagEntry();
+      } else {
+        return;
+      }
+    }
+  }
+
   private char[] normalize(char currentChar) {
     char[] normalizedChars;
     if (currentChar == HTML_OPENING) {
@@ -0,0 +1,140 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.timemachine;
+
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Numeric measures of a resource on its successive analyses, ordered by date. Values are stored in primitive
+ * arrays, {@link Double#NaN} meaning that the metric has no value on the analysis.
+ *
+ * @since 4.2
+ */
+public class TimeSeries {
+
+  private final int[] metricIds;
+  private final long[] snapshotIds;
+  private final long[] dates;
+  // values[metric index][snapshot index]
+  private final double[][] values;
+
+  TimeSeries(int[] metricIds, long[] snapshotIds, long[] dates, double[][] values) {
+    this.metricIds = metricIds;
+    this.snapshotIds = snapshotIds;
+    this.dates = dates;
+    this.values = values;
+  }
+
+  public int size() {
+    return snapshotIds.length;
+  }
+
+  public int[] metricIds() {
+    return metricIds;
+  }
+
+  public long[] snapshotIds() {
+    return snapshotIds;
+  }
+
+  /**
+   * Dates of analyses, in milliseconds
+   */
+  public long[] dates() {
+    return dates;
+  }
+
+  /**
+   * Values of the metric, in the order of {@link #dates()}
+   */
+  public double[] values(int metricId) {
+    for (int index = 0; index < metricIds.length; index++) {
+      if (metricIds[index] == metricId) {
+        return values[index];
+      }
+    }
+    throw new IllegalArgumentException("Metric " + metricId + " is not part of the time series");
+  }
+
+  /**
+   * Analyses done between the two dates, in milliseconds, both included
+   */
+  public TimeSeries between(@Nullable Long from, @Nullable Long to) {
+    int start = 0;
+    int end = dates.length;
+    if (from != null) {
+      while (start < end && dates[start] < from) {
+        start++;
+      }
+    }
+    if (to != null) {
+      while (end > start && dates[end - 1] > to) {
+        end--;
+      }
+    }
+    if (start == 0 && end == dates.length) {
+      return this;
+    }
+    int[] indices = new int[end - start];
+    for (int i = 0; i < indices.length; i++) {
+      indices[i] = start + i;
+    }
+    return select(indices);
+  }
+
+  /**
+   * Keeps at most <code>maxPoints</code> analyses, evenly spread and including the first and the last ones.
+   * Zero or a negative value disables downsampling.
+   */
+  public TimeSeries downsample(int maxPoints) {
+    if (maxPoints <= 0 || size() <= maxPoints) {
+      return this;
+    }
+    if (maxPoints == 1) {
+      return select(new int[] {size() - 1});
+    }
+    int[] indices = new int[maxPoints];
+    for (int i = 0; i < maxPoints; i++) {
+      indices[i] = (int) Math.round((double) i * (size() - 1) / (maxPoints - 1));
+    }
+    return select(indices);
+  }
+
+  private TimeSeries select(int[] indices) {
+    long[] selectedSnapshotIds = new long[indices.length];
+    long[] selectedDates = new long[indices.length];
+    double[][] selectedValues = new double[metricIds.length][indices.length];
+    for (int i = 0; i < indices.length; i++) {
+      selectedSnapshotIds[i] = snapshotIds[indices[i]];
+      selectedDates[i] = dates[indices[i]];
+      for (int metricIndex = 0; metricIndex < metricIds.length; metricIndex++) {
+        selectedValues[metricIndex][i] = values[metricIndex][indices[i]];
+      }
+    }
+    return new TimeSeries(metricIds, selectedSnapshotIds, selectedDates, selectedValues);
+  }
+
+  @Override
+  public String toString() {
+    return "TimeSeries{metrics=" + Arrays.toString(metricIds) + ", size=" + size() + "}";
+  }
+}
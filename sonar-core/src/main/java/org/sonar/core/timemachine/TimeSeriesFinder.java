@@ -0,0 +1,208 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.timemachine;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+import org.apache.commons.dbutils.DbUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.ibatis.session.SqlSession;
+import org.sonar.api.ServerComponent;
+import org.sonar.api.database.model.Snapshot;
+import org.sonar.core.persistence.MyBatis;
+
+import javax.annotation.Nullable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads the history of numeric measures of a resource with a single SQL request. The whole history of a resource
+ * is kept in memory for the given metrics until its next analysis.
+ *
+ * @since 4.2
+ */
+public class TimeSeriesFinder implements ServerComponent {
+
+  static final int CACHE_MAX_SIZE = 200;
+
+  // A purge can mark a snapshot in the middle of the history as unprocessed without changing the last id
+  private static final String ANALYSES_STATE_SQL = "SELECT COUNT(*), MAX(s.id) FROM snapshots s WHERE s.project_id=? AND s.status=?";
+
+  private final MyBatis mybatis;
+  private final Map<String, CachedTimeSeries> cache = new LinkedHashMap<String, CachedTimeSeries>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, CachedTimeSeries> eldest) {
+      return size() > CACHE_MAX_SIZE;
+    }
+  };
+
+  public TimeSeriesFinder(MyBatis mybatis) {
+    this.mybatis = mybatis;
+  }
+
+  /**
+   * @param from        optional lower bound of the dates of analyses, in milliseconds
+   * @param to          optional upper bound of the dates of analyses, in milliseconds
+   * @param maxPoints   maximum number of analyses to return, zero to return all of them
+   */
+  public TimeSeries find(long resourceId, Collection<? extends Number> metricIds, @Nullable Long from, @Nullable Long to, int maxPoints) {
+    int[] sortedMetricIds = sortedIds(metricIds);
+    SqlSession session = null;
+    Connection connection = null;
+    try {
+      session = mybatis.openSession();
+      connection = session.getConnection();
+      TimeSeries series = load(connection, resourceId, sortedMetricIds);
+      return series.between(from, to).downsample(maxPoints);
+
+    } catch (SQLException e) {
+      throw new IllegalStateException("Fail to load time series of resource " + resourceId, e);
+    } finally {
+      MyBatis.closeQuietly(session);
+      // connection is supposed to be closed by the session
+      DbUtils.closeQuietly(connection);
+    }
+  }
+
+  private static int[] sortedIds(Collection<? extends Number> ids) {
+    // numbers given by JRuby are Long
+    Set<Integer> sorted = Sets.newTreeSet();
+    for (Number id : ids) {
+      sorted.add(id.intValue());
+    }
+    return Ints.toArray(sorted);
+  }
+
+  private TimeSeries load(Connection connection, long resourceId, int[] metricIds) throws SQLException {
+    String analysesState = selectAnalysesState(connection, resourceId);
+    String key = resourceId + ":" + StringUtils.join(Ints.asList(metricIds), ',');
+    synchronized (cache) {
+      CachedTimeSeries cached = cache.get(key);
+      if (cached != null && cached.isUpToDate(analysesState)) {
+        return cached.series;
+      }
+    }
+    TimeSeries series = selectTimeSeries(connection, resourceId, metricIds);
+    synchronized (cache) {
+      cache.put(key, new CachedTimeSeries(analysesState, series));
+    }
+    return series;
+  }
+
+  /**
+   * Number and last id of the processed analyses. Any new analysis or purge of an analysis changes it.
+   */
+  private String selectAnalysesState(Connection connection, long resourceId) throws SQLException {
+    PreparedStatement statement = connection.prepareStatement(ANALYSES_STATE_SQL);
+    ResultSet rs = null;
+    try {
+      statement.setLong(1, resourceId);
+      statement.setString(2, Snapshot.STATUS_PROCESSED);
+      rs = statement.executeQuery();
+      rs.next();
+      return rs.getLong(1) + ":" + rs.getLong(2);
+    } finally {
+      DbUtils.closeQuietly(rs);
+      DbUtils.closeQuietly(statement);
+    }
+  }
+
+  private TimeSeries selectTimeSeries(Connection connection, long resourceId, int[] metricIds) throws SQLException {
+    List<Long> snapshotIds = Lists.newArrayList();
+    List<Long> dates = Lists.newArrayList();
+    List<double[]> valuesPerSnapshot = Lists.newArrayList();
+    if (metricIds.length > 0) {
+      PreparedStatement statement = connection.prepareStatement(sql(metricIds.length));
+      ResultSet rs = null;
+      try {
+        statement.setLong(1, resourceId);
+        statement.setString(2, Snapshot.STATUS_PROCESSED);
+        for (int index = 0; index < metricIds.length; index++) {
+          statement.setInt(3 + index, metricIds[index]);
+        }
+        rs = statement.executeQuery();
+        double[] values = null;
+        while (rs.next()) {
+          long snapshotId = rs.getLong(1);
+          if (snapshotIds.isEmpty() || snapshotIds.get(snapshotIds.size() - 1) != snapshotId) {
+            snapshotIds.add(snapshotId);
+            dates.add(rs.getTimestamp(2).getTime());
+            values = new double[metricIds.length];
+            Arrays.fill(values, Double.NaN);
+            valuesPerSnapshot.add(values);
+          }
+          double value = rs.getDouble(4);
+          if (!rs.wasNull()) {
+            values[Ints.indexOf(metricIds, rs.getInt(3))] = value;
+          }
+        }
+      } finally {
+        DbUtils.closeQuietly(rs);
+        DbUtils.closeQuietly(statement);
+      }
+    }
+
+    double[][] values = new double[metricIds.length][valuesPerSnapshot.size()];
+    for (int snapshotIndex = 0; snapshotIndex < valuesPerSnapshot.size(); snapshotIndex++) {
+      for (int metricIndex = 0; metricIndex < metricIds.length; metricIndex++) {
+        values[metricIndex][snapshotIndex] = valuesPerSnapshot.get(snapshotIndex)[metricIndex];
+      }
+    }
+    return new TimeSeries(metricIds, Longs.toArray(snapshotIds), Longs.toArray(dates), values);
+  }
+
+  private static String sql(int metricCount) {
+    StringBuilder sb = new StringBuilder(500);
+    sb.append("SELECT s.id, s.created_at, pm.metric_id, pm.value FROM project_measures pm INNER JOIN snapshots s ON s.id=pm.snapshot_id ");
+    sb.append("WHERE s.project_id=? AND s.status=? ");
+    sb.append("AND pm.rule_id IS NULL AND pm.rule_priority IS NULL AND pm.characteristic_id IS NULL AND pm.person_id IS NULL ");
+    sb.append("AND pm.metric_id IN (");
+    for (int index = 0; index < metricCount; index++) {
+      sb.append(index > 0 ? ",?" : "?");
+    }
+    sb.append(") ORDER BY s.created_at, s.id");
+    return sb.toString();
+  }
+
+  private static class CachedTimeSeries {
+    private final String analysesState;
+    private final TimeSeries series;
+
+    CachedTimeSeries(String analysesState, TimeSeries series) {
+      this.analysesState = analysesState;
+      this.series = series;
+    }
+
+    boolean isUpToDate(String currentAnalysesState) {
+      return analysesState.equals(currentAnalysesState);
+    }
+  }
+}
@@ -27,6 +27,8 @@ import org.sonar.api.utils.DateUtils;
 import org.sonar.core.persistence.AbstractDaoTestCase;
 import org.sonar.core.persistence.MyBatis;
 
+import java.util.Arrays;
+
 import static org.fest.assertions.Assertions.assertThat;
 
 public class IssueMapperTest extends AbstractDaoTestCase {
@@ -188,4 +190,13 @@ public class IssueMapperTest extends AbstractDaoTestCase {
 
     checkTables("updateBeforeSelectedDate_with_conflict", new String[]{"id"}, "issues");
   }
+
+  @Test
+  public void selectKeysNotUpdatedAt() throws Exception {
+    setupData("selectKeysNotUpdatedAt");
+
+    assertThat(mapper.selectKeysNotUpdatedAt(Arrays.asList("ABCDE", "BCDEF"), DateUtils.parseDate("2013-05-18"))).containsOnly("ABCDE");
+    assertThat(mapper.selectKeysNotUpdatedAt(Arrays.asList("ABCDE", "BCDEF", "CDEFG"), DateUtils.parseDate("2014-01-01"))).containsOnly("ABCDE", "BCDEF", "CDEFG");
+    assertThat(mapper.selectKeysNotUpdatedAt(Arrays.asList("BCDEF"), DateUtils.parseDate("2013-05-18"))).isEmpty();
+  }
 }
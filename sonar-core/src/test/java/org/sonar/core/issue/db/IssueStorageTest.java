@@ -147,6 +147,39 @@ public class IssueStorageTest extends AbstractDaoTestCase {
     checkTables("should_resolve_conflicts_on_updates", new String[]{"id", "created_at", "updated_at"}, "issues");
   }
 
+  @Test
+  public void should_resolve_conflicts_with_changes_dated_after_scan() throws Exception {
+    // issue in database has been updated by end-user after the beginning of the scan
+    setupData("should_resolve_conflicts_on_updates_dated_after_scan");
+
+    FakeSaver saver = new FakeSaver(getMyBatis(), new FakeRuleFinder());
+
+    DefaultIssue issue = new DefaultIssue()
+      .setKey("ABCDE")
+      .setNew(false)
+      .setChanged(true)
+      .setCreationDate(DateUtils.parseDate("2005-05-12"))
+      .setUpdateDate(DateUtils.parseDate("2013-05-18"))
+      .setRuleKey(RuleKey.of("squid", "AvoidCycles"))
+      .setComponentKey("struts:Action")
+      .setSelectedAt(DateUtils.parseDate("2005-01-01"))
+
+        // fields to be updated
+      .setLine(444)
+      .setSeverity("BLOCKER")
+      .setChecksum("FFFFF")
+      .setAttribute("JIRA", "http://jira.com")
+
+        // fields overridden by end-user -> do not save
+      .setAssignee("looser")
+      .setResolution(null)
+      .setStatus("REOPEN");
+
+    saver.save(issue);
+
+    checkTables("should_resolve_conflicts_on_updates_dated_after_scan", new String[]{"id", "created_at", "updated_at"}, "issues");
+  }
+
   static class FakeSaver extends IssueStorage {
     protected FakeSaver(MyBatis mybatis, RuleFinder ruleFinder) {
       super(mybatis, ruleFinder);
@@ -0,0 +1,111 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.core.persistence.TestDatabase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class DrilldownExecutorTest {
+
+  @Rule
+  public TestDatabase db = new TestDatabase();
+
+  private DrilldownExecutor executor;
+
+  @Before
+  public void before() {
+    db.prepareDbUnit(getClass(), "shared.xml");
+    executor = new DrilldownExecutor(db.myBatis());
+  }
+
+  @Test
+  public void should_sort_measures_of_descendants() {
+    List<DrilldownRow> rows = executor.execute(filesOfDirectory());
+
+    assertThat(rows).onProperty("measureId").containsExactly(1006L, 1004L, 1003L, 1005L);
+    assertThat(rows).onProperty("snapshotId").containsExactly(106L, 104L, 103L, 105L);
+    assertThat(rows).onProperty("resourceId").containsExactly(6L, 4L, 3L, 5L);
+    assertThat(rows).onProperty("value").containsExactly(0.0, 10.0, 20.0, 30.0);
+    assertThat(rows).onProperty("textValue").containsExactly(null, null, null, "foo");
+    assertThat(rows).onProperty("alertStatus").containsExactly(null, null, null, "ERROR");
+    assertThat(rows).onProperty("alertText").containsExactly(null, null, null, "Coverage < 50");
+
+    rows = executor.execute(filesOfDirectory().setDescending(true));
+    assertThat(rows).onProperty("measureId").containsExactly(1005L, 1003L, 1004L, 1006L);
+  }
+
+  @Test
+  public void should_limit_results() {
+    List<DrilldownRow> rows = executor.execute(filesOfDirectory().setDescending(true).setLimit(2));
+
+    assertThat(rows).onProperty("measureId").containsExactly(1005L, 1003L);
+  }
+
+  @Test
+  public void should_exclude_values() {
+    assertThat(executor.execute(filesOfDirectory().setExcludedValue(20.0))).onProperty("measureId").containsExactly(1006L, 1004L, 1005L);
+    assertThat(executor.execute(filesOfDirectory().setExcludeZeroValue(true))).onProperty("measureId").containsExactly(1004L, 1003L, 1005L);
+  }
+
+  @Test
+  public void should_load_variations() {
+    List<DrilldownRow> rows = executor.execute(filesOfDirectory().setPeriod(1));
+
+    assertThat(rows).onProperty("measureId").containsExactly(1005L, 1004L, 1003L);
+    assertThat(rows).onProperty("value").containsExactly(-5.0, 0.0, 5.0);
+  }
+
+  @Test
+  public void should_filter_by_rule() {
+    List<DrilldownRow> rows = executor.execute(filesOfDirectory().setRuleId(7));
+
+    assertThat(rows).onProperty("measureId").containsExactly(1007L);
+  }
+
+  @Test
+  public void should_filter_by_qualifiers() {
+    assertThat(executor.execute(filesOfDirectory().setQualifiers(Arrays.asList("PAC")))).isEmpty();
+    assertThat(executor.execute(filesOfDirectory().setQualifiers(Collections.<String>emptyList()))).isEmpty();
+
+    DrilldownQuery directories = new DrilldownQuery().setRootSnapshotId(101L).setBasePath("101.").setQualifiers(Arrays.asList("PAC")).setMetricId(1);
+    assertThat(executor.execute(directories)).onProperty("measureId").containsExactly(1002L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void should_fail_if_bad_period() {
+    new DrilldownQuery().setPeriod(6);
+  }
+
+  private DrilldownQuery filesOfDirectory() {
+    return new DrilldownQuery()
+      .setRootSnapshotId(101L)
+      .setBasePath("101.102.")
+      .setQualifiers(Arrays.asList("CLA"))
+      .setMetricId(1);
+  }
+}
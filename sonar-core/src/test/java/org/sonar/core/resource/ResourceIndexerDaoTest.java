@@ -77,6 +77,15 @@ public class ResourceIndexerDaoTest extends AbstractDaoTestCase {
     checkTables("shouldReindexProjectAfterRenaming", new String[] {"id"}, "resource_index");
   }
 
+  @Test
+  public void shouldNotReindexUnchangedProject() {
+    setupData("shouldNotReindexUnchangedProject");
+
+    dao.indexProject(1);
+
+    checkTables("shouldNotReindexUnchangedProject", new String[] {"id"}, "resource_index");
+  }
+
   @Test
   public void shouldNotIndexPackages() throws SQLException {
     setupData("shouldNotIndexPackages");
@@ -0,0 +1,164 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.source;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.config.Settings;
+import org.sonar.api.platform.ServerFileSystem;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DecoratedSourceCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void should_cache_lines() throws Exception {
+    DecoratedSourceCache cache = new DecoratedSourceCache(1024L, null, 0L);
+
+    assertThat(cache.get(1L)).isNull();
+    cache.put(1L, Arrays.asList("foo", "bar"));
+
+    assertThat(cache.get(1L)).containsExactly("foo", "bar");
+    assertThat(cache.getHitCount()).isEqualTo(1L);
+    assertThat(cache.getMissCount()).isEqualTo(1L);
+    assertThat(cache.getHitRate()).isEqualTo(0.5);
+    assertThat(cache.getEntryCount()).isEqualTo(1);
+    assertThat(cache.getSizeInBytes()).isGreaterThan(0L);
+  }
+
+  @Test
+  public void should_cache_absence_of_decoration() throws Exception {
+    DecoratedSourceCache cache = new DecoratedSourceCache(1024L, null, 0L);
+
+    cache.put(1L, null);
+
+    assertThat(DecoratedSourceCache.isNoDecoration(cache.get(1L))).isTrue();
+  }
+
+  @Test
+  public void should_evict_least_recently_used_entries() throws Exception {
+    // each entry weighs 64 + 48 + 2 * 3 bytes
+    DecoratedSourceCache cache = new DecoratedSourceCache(300L, null, 0L);
+
+    cache.put(1L, Arrays.asList("foo"));
+    cache.put(2L, Arrays.asList("bar"));
+    cache.get(1L);
+    cache.put(3L, Arrays.asList("baz"));
+
+    assertThat(cache.getEvictionCount()).isEqualTo(1L);
+    assertThat(cache.get(2L)).isNull();
+    assertThat(cache.get(1L)).containsExactly("foo");
+    assertThat(cache.get(3L)).containsExactly("baz");
+  }
+
+  @Test
+  public void should_not_cache_entries_bigger_than_max_size() throws Exception {
+    DecoratedSourceCache cache = new DecoratedSourceCache(10L, null, 0L);
+
+    cache.put(1L, Arrays.asList("foo"));
+
+    assertThat(cache.get(1L)).isNull();
+    assertThat(cache.getEntryCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void should_reload_evicted_entries_from_disk() throws Exception {
+    File spillDir = temp.newFolder();
+    DecoratedSourceCache cache = new DecoratedSourceCache(200L, spillDir, 1024L);
+    cache.start();
+
+    cache.put(1L, Arrays.asList("<span class=\"k\">public</span> été"));
+    cache.put(2L, null);
+    cache.put(3L, Arrays.asList("foo"));
+
+    List<String> lines = cache.get(1L);
+    assertThat(lines).containsExactly("<span class=\"k\">public</span> été");
+    assertThat(DecoratedSourceCache.isNoDecoration(cache.get(2L))).isTrue();
+    assertThat(cache.getDiskHitCount()).isEqualTo(2L);
+
+    cache.stop();
+    assertThat(spillDir).doesNotExist();
+  }
+
+  @Test
+  public void should_delete_spilled_entries_reloaded_in_memory() throws Exception {
+    File spillDir = temp.newFolder();
+    DecoratedSourceCache cache = new DecoratedSourceCache(200L, spillDir, 1024L);
+    cache.start();
+
+    cache.put(1L, Arrays.asList("foo"));
+    cache.put(2L, Arrays.asList("bar"));
+    assertThat(new File(spillDir, "1.bin")).exists();
+    assertThat(cache.getDiskSizeInBytes()).isGreaterThan(0L);
+
+    // 1 is reloaded, so 2 is spilled
+    assertThat(cache.get(1L)).containsExactly("foo");
+    assertThat(new File(spillDir, "1.bin")).doesNotExist();
+    assertThat(new File(spillDir, "2.bin")).exists();
+    assertThat(spillDir.list()).hasSize(1);
+
+    cache.stop();
+  }
+
+  @Test
+  public void should_delete_oldest_spilled_entries() throws Exception {
+    File spillDir = temp.newFolder();
+    // each spilled file weighs 1 + 4 + 4 + 3 bytes
+    DecoratedSourceCache cache = new DecoratedSourceCache(200L, spillDir, 30L);
+    cache.start();
+
+    cache.put(1L, Arrays.asList("foo"));
+    cache.put(2L, Arrays.asList("bar"));
+    cache.put(3L, Arrays.asList("baz"));
+    cache.put(4L, Arrays.asList("qux"));
+
+    assertThat(new File(spillDir, "1.bin")).doesNotExist();
+    assertThat(new File(spillDir, "2.bin")).exists();
+    assertThat(new File(spillDir, "3.bin")).exists();
+    assertThat(cache.getDiskSizeInBytes()).isEqualTo(24L);
+    assertThat(cache.get(1L)).isNull();
+    assertThat(cache.get(2L)).containsExactly("bar");
+
+    cache.stop();
+  }
+
+  @Test
+  public void should_load_settings() throws Exception {
+    ServerFileSystem fileSystem = mock(ServerFileSystem.class);
+    when(fileSystem.getHomeDir()).thenReturn(temp.newFolder());
+    Settings settings = new Settings();
+    settings.setProperty(DecoratedSourceCache.MAX_SIZE_PROPERTY, 0);
+
+    DecoratedSourceCache cache = new DecoratedSourceCache(settings, fileSystem);
+    cache.put(1L, Arrays.asList("foo"));
+
+    assertThat(cache.get(1L)).isNull();
+  }
+}
@@ -95,6 +95,67 @@ public class HtmlSourceDecoratorTest extends AbstractDaoTestCase {
     );
   }
 
+  @Test
+  public void should_decorate_range_of_lines() throws Exception {
+
+    HtmlSourceDecorator sourceDecorator = new HtmlSourceDecorator(getMyBatis());
+
+    List<String> decoratedSource = sourceDecorator.getDecoratedSourceAsHtml(13L, 5, 6);
+
+    assertThat(decoratedSource).containsExactly(
+      "<span class=\"k\">public </span><span class=\"k\">class </span><span class=\"sym-31 sym\">HelloWorld</span> {",
+      "  <span class=\"k\">public</span> <span class=\"k\">void</span> <span class=\"sym-58 sym\">foo</span>() {"
+    );
+  }
+
+  @Test
+  public void should_decorate_range_of_lines_from_cache() throws Exception {
+
+    DecoratedSourceCache cache = new DecoratedSourceCache(1024L * 1024L, null, 0L);
+    HtmlSourceDecorator sourceDecorator = new HtmlSourceDecorator(getMyBatis(), cache);
+    sourceDecorator.getDecoratedSourceAsHtml(12L);
+
+    List<String> decoratedSource = sourceDecorator.getDecoratedSourceAsHtml(12L, 5, 100);
+
+    assertThat(decoratedSource).containsExactly(
+      "public class <span class=\"sym-31 sym\">HelloWorld</span> {",
+      "}"
+    );
+    assertThat(cache.getHitCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void should_cache_whole_source_when_decorating_range_of_lines() throws Exception {
+
+    DecoratedSourceCache cache = new DecoratedSourceCache(1024L * 1024L, null, 0L);
+    HtmlSourceDecorator sourceDecorator = new HtmlSourceDecorator(getMyBatis(), cache);
+
+    assertThat(sourceDecorator.getDecoratedSourceAsHtml(12L, 5, 100)).containsExactly(
+      "public class <span class=\"sym-31 sym\">HelloWorld</span> {",
+      "}"
+    );
+    assertThat(cache.getMissCount()).isEqualTo(1L);
+    assertThat(cache.getEntryCount()).isEqualTo(1);
+    assertThat(sourceDecorator.getDecoratedSourceAsHtml(12L)).hasSize(6);
+    assertThat(cache.getHitCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void should_decorate_source_once_for_successive_ranges_of_lines() throws Exception {
+
+    DecoratedSourceCache cache = new DecoratedSourceCache(1024L * 1024L, null, 0L);
+    HtmlSourceDecorator sourceDecorator = new HtmlSourceDecorator(getMyBatis(), cache);
+
+    assertThat(sourceDecorator.getDecoratedSourceAsHtml(13L, 5, 5)).containsExactly(
+      "<span class=\"k\">public </span><span class=\"k\">class </span><span class=\"sym-31 sym\">HelloWorld</span> {"
+    );
+    assertThat(sourceDecorator.getDecoratedSourceAsHtml(13L, 6, 6)).containsExactly(
+      "  <span class=\"k\">public</span> <span class=\"k\">void</span> <span class=\"sym-58 sym\">foo</span>() {"
+    );
+    assertThat(cache.getMissCount()).isEqualTo(1L);
+    assertThat(cache.getHitCount()).isEqualTo(1L);
+  }
+
   @Test
   public void should_not_query_sources_if_no_snapshot_data() throws Exception {
 
@@ -108,4 +169,21 @@ public class HtmlSourceDecoratorTest extends AbstractDaoTestCase {
     verify(snapshotDataDao, times(1)).selectSnapshotData(14L, Lists.newArrayList("highlight_syntax", "symbol"));
     verify(snapshotSourceDao, times(0)).selectSnapshotSource(14L);
   }
+
+  @Test
+  public void should_serve_decorated_source_from_cache() throws Exception {
+
+    SnapshotSourceDao snapshotSourceDao = mock(SnapshotSourceDao.class);
+    SnapshotDataDao snapshotDataDao = mock(SnapshotDataDao.class);
+    DecoratedSourceCache cache = new DecoratedSourceCache(1024L * 1024L, null, 0L);
+
+    HtmlSourceDecorator sourceDecorator = new HtmlSourceDecorator(snapshotSourceDao, snapshotDataDao, cache);
+
+    assertThat(sourceDecorator.getDecoratedSourceAsHtml(14L)).isNull();
+    assertThat(sourceDecorator.getDecoratedSourceAsHtml(14L)).isNull();
+
+    verify(snapshotDataDao, times(1)).selectSnapshotData(14L, Lists.newArrayList("highlight_syntax", "symbol"));
+    assertThat(cache.getHitCount()).isEqualTo(1L);
+    assertThat(cache.getMissCount()).isEqualTo(1L);
+  }
 }
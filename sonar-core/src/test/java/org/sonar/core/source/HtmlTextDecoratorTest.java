@@ -301,4 +301,51 @@ public class HtmlTextDecoratorTest {
         ""
         );
   }
+
+  @Test
+  public void should_decorate_range_of_lines() throws Exception {
+
+    String javaDocSample =
+        "/**" + CR_END_OF_LINE + LF_END_OF_LINE +
+          " * Creates a FormulaDecorator" + CR_END_OF_LINE + LF_END_OF_LINE +
+          " *" + CR_END_OF_LINE + LF_END_OF_LINE +
+          " * @param metric the metric should have an associated formula" + CR_END_OF_LINE + LF_END_OF_LINE +
+          " */" + CR_END_OF_LINE + LF_END_OF_LINE +
+          "public class Foo {}";
+
+    DecorationDataHolder decorationData = new DecorationDataHolder();
+    decorationData.loadSyntaxHighlightingData("0,106,cppd;50,56,k;108,114,k;");
+
+    HtmlTextDecorator htmlTextDecorator = new HtmlTextDecorator();
+    List<String> htmlOutput = htmlTextDecorator.decorateTextWithHtml(javaDocSample, decorationData, 3, 4);
+
+    assertThat(htmlOutput).containsExactly(
+        "<span class=\"cppd\"> *</span>",
+        "<span class=\"cppd\"> * @param <span class=\"k\">metric</span> the metric should have an associated formula</span>"
+        );
+  }
+
+  @Test
+  public void should_decorate_range_of_lines_at_end_of_file() throws Exception {
+
+    String classDeclaration = "public class Foo {" + LF_END_OF_LINE + "}" + LF_END_OF_LINE;
+
+    DecorationDataHolder decorationData = new DecorationDataHolder();
+    decorationData.loadSyntaxHighlightingData("0,6,k;7,12,k;");
+
+    HtmlTextDecorator htmlTextDecorator = new HtmlTextDecorator();
+
+    assertThat(htmlTextDecorator.decorateTextWithHtml(classDeclaration, decorationData, 2, 10)).containsExactly("}", "");
+  }
+
+  @Test
+  public void should_return_no_line_if_range_is_out_of_text() throws Exception {
+
+    DecorationDataHolder decorationData = new DecorationDataHolder();
+    decorationData.loadSyntaxHighlightingData("0,6,k;");
+
+    HtmlTextDecorator htmlTextDecorator = new HtmlTextDecorator();
+
+    assertThat(htmlTextDecorator.decorateTextWithHtml("public class Foo {}", decorationData, 5, 10)).isEmpty();
+  }
 }
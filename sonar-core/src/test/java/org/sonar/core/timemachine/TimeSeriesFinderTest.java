@@ -0,0 +1,114 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.timemachine;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.DateUtils;
+import org.sonar.core.persistence.TestDatabase;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TimeSeriesFinderTest {
+
+  @Rule
+  public TestDatabase db = new TestDatabase();
+
+  private TimeSeriesFinder finder;
+
+  @Before
+  public void before() {
+    db.prepareDbUnit(getClass(), "shared.xml");
+    finder = new TimeSeriesFinder(db.myBatis());
+  }
+
+  @Test
+  public void should_load_measures_of_processed_analyses() {
+    TimeSeries series = finder.find(1L, Arrays.asList(2, 1), null, null, 0);
+
+    assertThat(series.metricIds()).isEqualTo(new int[] {1, 2});
+    assertThat(series.snapshotIds()).isEqualTo(new long[] {101L, 102L, 103L});
+    assertThat(series.dates()[0]).isEqualTo(DateUtils.parseDate("2010-01-01").getTime());
+    assertThat(series.values(1)).isEqualTo(new double[] {10.0, 20.0, 30.0});
+    assertThat(series.values(2)[0]).isEqualTo(50.0);
+    assertThat(Double.isNaN(series.values(2)[1])).isTrue();
+    assertThat(series.values(2)[2]).isEqualTo(70.0);
+  }
+
+  @Test
+  public void should_accept_long_metric_ids() {
+    TimeSeries series = finder.find(1L, Arrays.asList(1L), null, null, 0);
+
+    assertThat(series.metricIds()).isEqualTo(new int[] {1});
+    assertThat(series.size()).isEqualTo(3);
+  }
+
+  @Test
+  public void should_filter_by_dates() {
+    long from = DateUtils.parseDate("2010-02-01").getTime();
+    long to = DateUtils.parseDate("2010-02-15").getTime();
+
+    assertThat(finder.find(1L, Arrays.asList(1), from, null, 0).snapshotIds()).isEqualTo(new long[] {102L, 103L});
+    assertThat(finder.find(1L, Arrays.asList(1), null, to, 0).snapshotIds()).isEqualTo(new long[] {101L, 102L});
+    assertThat(finder.find(1L, Arrays.asList(1), from, to, 0).snapshotIds()).isEqualTo(new long[] {102L});
+  }
+
+  @Test
+  public void should_downsample() {
+    TimeSeries series = finder.find(1L, Arrays.asList(1), null, null, 2);
+
+    assertThat(series.snapshotIds()).isEqualTo(new long[] {101L, 103L});
+    assertThat(series.values(1)).isEqualTo(new double[] {10.0, 30.0});
+  }
+
+  @Test
+  public void should_return_empty_series() {
+    assertThat(finder.find(1L, Collections.<Integer>emptyList(), null, null, 0).size()).isEqualTo(0);
+    assertThat(finder.find(3L, Arrays.asList(1), null, null, 0).size()).isEqualTo(0);
+  }
+
+  @Test
+  public void should_cache_until_next_analysis() {
+    TimeSeries series = finder.find(1L, Arrays.asList(1), null, null, 0);
+
+    db.executeUpdateSql("UPDATE project_measures SET value=0");
+    assertThat(finder.find(1L, Arrays.asList(1), null, null, 0)).isSameAs(series);
+
+    db.executeUpdateSql("UPDATE snapshots SET status='P' WHERE id=104");
+    series = finder.find(1L, Arrays.asList(1), null, null, 0);
+    assertThat(series.snapshotIds()).isEqualTo(new long[] {101L, 102L, 103L, 104L});
+    assertThat(series.values(1)).isEqualTo(new double[] {0.0, 0.0, 0.0, 0.0});
+  }
+
+  @Test
+  public void should_reload_when_analysis_is_purged() {
+    TimeSeries series = finder.find(1L, Arrays.asList(1), null, null, 0);
+    assertThat(series.snapshotIds()).isEqualTo(new long[] {101L, 102L, 103L});
+
+    // the last analysis is unchanged
+    db.executeUpdateSql("UPDATE snapshots SET status='U' WHERE id=102");
+    series = finder.find(1L, Arrays.asList(1), null, null, 0);
+    assertThat(series.snapshotIds()).isEqualTo(new long[] {101L, 103L});
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.timemachine;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TimeSeriesTest {
+
+  private TimeSeries series = new TimeSeries(new int[] {1, 2}, new long[] {11L, 12L, 13L, 14L, 15L}, new long[] {100L, 200L, 300L, 400L, 500L},
+    new double[][] {{1.0, 2.0, 3.0, 4.0, 5.0}, {10.0, Double.NaN, 30.0, 40.0, 50.0}});
+
+  @Test
+  public void should_get_values_of_metric() {
+    assertThat(series.size()).isEqualTo(5);
+    assertThat(series.values(1)).isEqualTo(new double[] {1.0, 2.0, 3.0, 4.0, 5.0});
+    assertThat(series.values(2)[0]).isEqualTo(10.0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void should_fail_if_unknown_metric() {
+    series.values(3);
+  }
+
+  @Test
+  public void should_select_between_dates() {
+    assertThat(series.between(null, null)).isSameAs(series);
+    assertThat(series.between(200L, 400L).dates()).isEqualTo(new long[] {200L, 300L, 400L});
+    assertThat(series.between(150L, null).snapshotIds()).isEqualTo(new long[] {12L, 13L, 14L, 15L});
+    assertThat(series.between(null, 250L).values(1)).isEqualTo(new double[] {1.0, 2.0});
+    assertThat(series.between(600L, null).size()).isEqualTo(0);
+  }
+
+  @Test
+  public void should_downsample() {
+    assertThat(series.downsample(0)).isSameAs(series);
+    assertThat(series.downsample(5)).isSameAs(series);
+    assertThat(series.downsample(3).snapshotIds()).isEqualTo(new long[] {11L, 13L, 15L});
+    assertThat(series.downsample(3).values(2)).isEqualTo(new double[] {10.0, 30.0, 50.0});
+    assertThat(series.downsample(2).dates()).isEqualTo(new long[] {100L, 500L});
+    assertThat(series.downsample(1).dates()).isEqualTo(new long[] {500L});
+  }
+}
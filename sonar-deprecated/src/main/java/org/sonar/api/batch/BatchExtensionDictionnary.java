@@ -115,6 +115,17 @@ public class BatchExtensionDictionnary {
   }
 
   public <T> Collection<T> sort(Collection<T> extensions) {
+    List sortedList = newGraph(extensions).sort();
+
+    return Collections2.filter(sortedList, Predicates.in(extensions));
+  }
+
+  /**
+   * Graph of the extensions and of the objects they depend upon or that depend upon them, including phases.
+   *
+   * @since 4.2
+   */
+  protected <T> DirectAcyclicGraph newGraph(Collection<T> extensions) {
     DirectAcyclicGraph dag = new DirectAcyclicGraph();
 
     for (T extension : extensions) {
@@ -127,9 +138,7 @@ public class BatchExtensionDictionnary {
       }
       completePhaseDependencies(dag, extension);
     }
-    List sortedList = dag.sort();
-
-    return Collections2.filter(sortedList, Predicates.in(extensions));
+    return dag;
   }
 
   /**
@@ -19,12 +19,15 @@
  */
 package org.sonar.graph;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
 
 public class Dsm<V> {
 
+  private static final DsmCell EMPTY_CELL = new DsmCell(null, false);
+
   private V[] vertices;
   private DsmCell[][] cells;
   private int dimension;
@@ -47,17 +50,54 @@ public class Dsm<V> {
   }
 
   private void initCells(Set<Edge> feedbackEdges) {
+    if (graph instanceof IndexedDirectedGraph) {
+      initCellsFromIndexedGraph((IndexedDirectedGraph<V, ? extends Edge<V>>) graph, feedbackEdges);
+      return;
+    }
     for (int x = 0; x < dimension; x++) {
       for (int y = 0; y < dimension; y++) {
         V from = vertices[x];
         V to = vertices[y];
 
         Edge<V> edge = graph.getEdge(from, to);
-        boolean isFeedbackEdge = edge != null && feedbackEdges.contains(edge);
-        DsmCell cell = new DsmCell(edge, isFeedbackEdge);
-        cells[x][y] = cell;
+        cells[x][y] = createCell(edge, feedbackEdges);
+      }
+    }
+  }
+
+  /**
+   * Only the existing edges are visited, instead of looking up every pair of vertices.
+   */
+  private void initCellsFromIndexedGraph(IndexedDirectedGraph<V, ? extends Edge<V>> indexedGraph, Set<Edge> feedbackEdges) {
+    int[] positionByGraphIndex = new int[indexedGraph.getDimension()];
+    Arrays.fill(positionByGraphIndex, -1);
+    int[] graphIndexByPosition = new int[dimension];
+    for (int x = 0; x < dimension; x++) {
+      Arrays.fill(cells[x], EMPTY_CELL);
+      int graphIndex = indexedGraph.indexOf(vertices[x]);
+      graphIndexByPosition[x] = graphIndex;
+      if (graphIndex >= 0) {
+        positionByGraphIndex[graphIndex] = x;
       }
     }
+    for (int x = 0; x < dimension; x++) {
+      int from = graphIndexByPosition[x];
+      if (from >= 0) {
+        for (int n = 0; n < indexedGraph.getNumberOfOutgoingEdges(from); n++) {
+          int y = positionByGraphIndex[indexedGraph.getOutgoingTarget(from, n)];
+          if (y >= 0) {
+            cells[x][y] = createCell(indexedGraph.getOutgoingEdge(from, n), feedbackEdges);
+          }
+        }
+      }
+    }
+  }
+
+  private static DsmCell createCell(Edge edge, Set<Edge> feedbackEdges) {
+    if (edge == null) {
+      return EMPTY_CELL;
+    }
+    return new DsmCell(edge, feedbackEdges.contains(edge));
   }
 
   private void initVertices(Collection<V> verticesCol) {
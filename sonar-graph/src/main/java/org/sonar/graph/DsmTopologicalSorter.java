@@ -25,10 +25,21 @@ public final class DsmTopologicalSorter<V> {
   private int leftOrderedIndex;
   private int rightOrderedIndex;
 
+  // number of incoming/outgoing edges of the vertex at a given position, restricted to the vertices not ordered yet.
+  // Counters are updated when a vertex is ordered, so that sorting is quadratic instead of cubic.
+  private final int[] incomingEdges;
+  private final int[] outgoingEdges;
+
   private DsmTopologicalSorter(Dsm<V> dsm) {
     this.dsm = dsm;
     leftOrderedIndex = 0;
     rightOrderedIndex = dsm.getDimension() - 1;
+    incomingEdges = new int[dsm.getDimension()];
+    outgoingEdges = new int[dsm.getDimension()];
+    for (int i = 0; i < dsm.getDimension(); i++) {
+      incomingEdges[i] = dsm.getNumberOfIncomingEdges(i, leftOrderedIndex, rightOrderedIndex);
+      outgoingEdges[i] = dsm.getNumberOfOutgoingEdges(i, leftOrderedIndex, rightOrderedIndex);
+    }
   }
 
   public static <V> void sort(Dsm<V> dsm) {
@@ -48,9 +59,10 @@ public final class DsmTopologicalSorter<V> {
   private boolean pushToLeftVerticesWithoutIncomingEdges() {
     boolean permutationsDone = false;
     for (int i = leftOrderedIndex; i <= rightOrderedIndex; i++) {
-      if (dsm.getNumberOfIncomingEdges(i, leftOrderedIndex, rightOrderedIndex) == 0) {
-        dsm.permute(i, leftOrderedIndex);
+      if (incomingEdges[i] == 0) {
+        permute(i, leftOrderedIndex);
         leftOrderedIndex++;
+        excludeFromUnorderedVertices(leftOrderedIndex - 1);
         permutationsDone = true;
       }
     }
@@ -60,12 +72,40 @@ public final class DsmTopologicalSorter<V> {
   private boolean pushToRightVerticesWithoutOutgointEdges() {
     boolean permutationsDone = false;
     for (int i = leftOrderedIndex; i <= rightOrderedIndex; i++) {
-      if (dsm.getNumberOfOutgoingEdges(i, leftOrderedIndex, rightOrderedIndex) == 0) {
-        dsm.permute(i, rightOrderedIndex);
+      if (outgoingEdges[i] == 0) {
+        permute(i, rightOrderedIndex);
         rightOrderedIndex--;
+        excludeFromUnorderedVertices(rightOrderedIndex + 1);
         permutationsDone = true;
       }
     }
     return permutationsDone;
   }
+
+  private void permute(int fromIndex, int toIndex) {
+    dsm.permute(fromIndex, toIndex);
+    swap(incomingEdges, fromIndex, toIndex);
+    swap(outgoingEdges, fromIndex, toIndex);
+  }
+
+  private void excludeFromUnorderedVertices(int index) {
+    for (int i = leftOrderedIndex; i <= rightOrderedIndex; i++) {
+      if (isCounted(dsm.getCell(index, i))) {
+        incomingEdges[i]--;
+      }
+      if (isCounted(dsm.getCell(i, index))) {
+        outgoingEdges[i]--;
+      }
+    }
+  }
+
+  private static boolean isCounted(DsmCell cell) {
+    return cell.getWeight() != 0 && !cell.isFeedbackEdge();
+  }
+
+  private static void swap(int[] array, int i, int j) {
+    int tmp = array[i];
+    array[i] = array[j];
+    array[j] = tmp;
+  }
 }
@@ -0,0 +1,301 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.graph;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of a {@link DirectedGraphAccessor} where vertices are identified by an int index and edges are
+ * stored in compressed adjacency arrays (CSR layout). Only the edges between the vertices of the snapshot are kept.
+ * <p/>
+ * Hash lookups are only done once per vertex when building the graph, so this implementation should be preferred
+ * when the same graph is requested many times, for example to build a {@link Dsm}.
+ *
+ * @since 4.2
+ */
+public final class IndexedDirectedGraph<V, E extends Edge<V>> implements DirectedGraphAccessor<V, E> {
+
+  private static final int INSERTION_SORT_THRESHOLD = 32;
+
+  private final Object[] vertices;
+  private final Map<V, Integer> indexByVertex;
+  private final Set<V> vertexSet;
+
+  // edges of vertex i are stored in range [offsets[i], offsets[i + 1]), sorted by index of the other vertex
+  private final int[] outgoingOffsets;
+  private final int[] outgoingTargets;
+  private final Object[] outgoingEdges;
+  private final int[] incomingOffsets;
+  private final int[] incomingSources;
+  private final Object[] incomingEdges;
+
+  private IndexedDirectedGraph(DirectedGraphAccessor<V, E> graph, Collection<V> verticesCol) {
+    int size = verticesCol.size();
+    this.vertices = new Object[size];
+    this.indexByVertex = new HashMap<V, Integer>(size * 2);
+    int i = 0;
+    for (V vertex : verticesCol) {
+      if (!indexByVertex.containsKey(vertex)) {
+        vertices[i] = vertex;
+        indexByVertex.put(vertex, i);
+        i++;
+      }
+    }
+    int dimension = i;
+    Set<V> set = new LinkedHashSet<V>(indexByVertex.size() * 2);
+    for (int v = 0; v < dimension; v++) {
+      set.add(vertex(v));
+    }
+    this.vertexSet = Collections.unmodifiableSet(set);
+
+    this.outgoingOffsets = new int[dimension + 1];
+    int[][] targetsByVertex = new int[dimension][];
+    Object[][] edgesByVertex = new Object[dimension][];
+    int edgeCount = 0;
+    for (int v = 0; v < dimension; v++) {
+      Collection<E> edges = graph.getOutgoingEdges(vertex(v));
+      int[] targets = new int[edges == null ? 0 : edges.size()];
+      Object[] kept = new Object[targets.length];
+      int count = 0;
+      if (edges != null) {
+        for (E edge : edges) {
+          Integer target = indexByVertex.get(edge.getTo());
+          if (target != null) {
+            targets[count] = target;
+            kept[count] = edge;
+            count++;
+          }
+        }
+      }
+      sortByIndex(targets, kept, count);
+      targetsByVertex[v] = targets;
+      edgesByVertex[v] = kept;
+      outgoingOffsets[v] = edgeCount;
+      edgeCount += count;
+    }
+    outgoingOffsets[dimension] = edgeCount;
+
+    this.outgoingTargets = new int[edgeCount];
+    this.outgoingEdges = new Object[edgeCount];
+    for (int v = 0; v < dimension; v++) {
+      int count = outgoingOffsets[v + 1] - outgoingOffsets[v];
+      System.arraycopy(targetsByVertex[v], 0, outgoingTargets, outgoingOffsets[v], count);
+      System.arraycopy(edgesByVertex[v], 0, outgoingEdges, outgoingOffsets[v], count);
+    }
+
+    // incoming edges are the transposition of outgoing edges. Sources are visited in increasing order,
+    // so incoming edges are naturally sorted by index of source.
+    this.incomingOffsets = new int[dimension + 1];
+    for (int e = 0; e < edgeCount; e++) {
+      incomingOffsets[outgoingTargets[e] + 1]++;
+    }
+    for (int v = 0; v < dimension; v++) {
+      incomingOffsets[v + 1] += incomingOffsets[v];
+    }
+    this.incomingSources = new int[edgeCount];
+    this.incomingEdges = new Object[edgeCount];
+    int[] cursors = Arrays.copyOf(incomingOffsets, dimension);
+    for (int v = 0; v < dimension; v++) {
+      for (int e = outgoingOffsets[v]; e < outgoingOffsets[v + 1]; e++) {
+        int position = cursors[outgoingTargets[e]]++;
+        incomingSources[position] = v;
+        incomingEdges[position] = outgoingEdges[e];
+      }
+    }
+  }
+
+  public static <V, E extends Edge<V>> IndexedDirectedGraph<V, E> copyOf(DirectedGraphAccessor<V, E> graph) {
+    return new IndexedDirectedGraph<V, E>(graph, graph.getVertices());
+  }
+
+  /**
+   * Only the given vertices and the edges between them are copied. Indices follow the iteration order of the collection.
+   */
+  public static <V, E extends Edge<V>> IndexedDirectedGraph<V, E> copyOf(DirectedGraphAccessor<V, E> graph, Collection<V> vertices) {
+    return new IndexedDirectedGraph<V, E>(graph, vertices);
+  }
+
+  public int getDimension() {
+    return vertexSet.size();
+  }
+
+  /**
+   * @return the index of the vertex, or -1 if the vertex does not belong to the graph
+   */
+  public int indexOf(V vertex) {
+    Integer index = indexByVertex.get(vertex);
+    return index == null ? -1 : index;
+  }
+
+  public V getVertex(int index) {
+    return vertex(index);
+  }
+
+  /**
+   * @return nullable edge
+   */
+  public E getEdge(int from, int to) {
+    int position = Arrays.binarySearch(outgoingTargets, outgoingOffsets[from], outgoingOffsets[from + 1], to);
+    return position < 0 ? null : edge(outgoingEdges, position);
+  }
+
+  public boolean hasEdge(int from, int to) {
+    return Arrays.binarySearch(outgoingTargets, outgoingOffsets[from], outgoingOffsets[from + 1], to) >= 0;
+  }
+
+  public int getNumberOfOutgoingEdges(int from) {
+    return outgoingOffsets[from + 1] - outgoingOffsets[from];
+  }
+
+  /**
+   * @param n rank of the edge, between 0 and {@link #getNumberOfOutgoingEdges(int)} excluded
+   * @return index of the target vertex of the n-th outgoing edge
+   */
+  public int getOutgoingTarget(int from, int n) {
+    return outgoingTargets[outgoingOffsets[from] + n];
+  }
+
+  public E getOutgoingEdge(int from, int n) {
+    return edge(outgoingEdges, outgoingOffsets[from] + n);
+  }
+
+  public int getNumberOfIncomingEdges(int to) {
+    return incomingOffsets[to + 1] - incomingOffsets[to];
+  }
+
+  public int getIncomingSource(int to, int n) {
+    return incomingSources[incomingOffsets[to] + n];
+  }
+
+  public E getIncomingEdge(int to, int n) {
+    return edge(incomingEdges, incomingOffsets[to] + n);
+  }
+
+  public E getEdge(V from, V to) {
+    int fromIndex = indexOf(from);
+    int toIndex = indexOf(to);
+    if (fromIndex < 0 || toIndex < 0) {
+      return null;
+    }
+    return getEdge(fromIndex, toIndex);
+  }
+
+  public boolean hasEdge(V from, V to) {
+    return getEdge(from, to) != null;
+  }
+
+  public Set<V> getVertices() {
+    return vertexSet;
+  }
+
+  public Collection<E> getOutgoingEdges(V from) {
+    int index = indexOf(from);
+    if (index < 0) {
+      return Collections.emptyList();
+    }
+    return new EdgeSlice<E>(outgoingEdges, outgoingOffsets[index], outgoingOffsets[index + 1]);
+  }
+
+  public Collection<E> getIncomingEdges(V to) {
+    int index = indexOf(to);
+    if (index < 0) {
+      return Collections.emptyList();
+    }
+    return new EdgeSlice<E>(incomingEdges, incomingOffsets[index], incomingOffsets[index + 1]);
+  }
+
+  @SuppressWarnings("unchecked")
+  private V vertex(int index) {
+    return (V) vertices[index];
+  }
+
+  @SuppressWarnings("unchecked")
+  private E edge(Object[] edges, int position) {
+    return (E) edges[position];
+  }
+
+  private static void sortByIndex(int[] indices, Object[] edges, int count) {
+    if (count <= INSERTION_SORT_THRESHOLD) {
+      insertionSort(indices, edges, count);
+    } else {
+      // pack index and original position in a single long in order to sort primitives
+      long[] packed = new long[count];
+      for (int i = 0; i < count; i++) {
+        packed[i] = ((long) indices[i] << 32) | i;
+      }
+      Arrays.sort(packed);
+      Object[] sortedEdges = new Object[count];
+      for (int i = 0; i < count; i++) {
+        indices[i] = (int) (packed[i] >>> 32);
+        sortedEdges[i] = edges[(int) packed[i]];
+      }
+      System.arraycopy(sortedEdges, 0, edges, 0, count);
+    }
+  }
+
+  private static void insertionSort(int[] indices, Object[] edges, int count) {
+    for (int i = 1; i < count; i++) {
+      int index = indices[i];
+      Object edge = edges[i];
+      int j = i - 1;
+      while (j >= 0 && indices[j] > index) {
+        indices[j + 1] = indices[j];
+        edges[j + 1] = edges[j];
+        j--;
+      }
+      indices[j + 1] = index;
+      edges[j + 1] = edge;
+    }
+  }
+
+  private static final class EdgeSlice<E> extends AbstractList<E> {
+    private final Object[] edges;
+    private final int from;
+    private final int to;
+
+    EdgeSlice(Object[] edges, int from, int to) {
+      this.edges = edges;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+      if (index < 0 || index >= size()) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+      }
+      return (E) edges[from + index];
+    }
+
+    @Override
+    public int size() {
+      return to - from;
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.graph;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class IndexedDirectedGraphTest {
+
+  private DirectedGraph<String, StringEdge> graph;
+
+  @Before
+  public void init() {
+    graph = DirectedGraph.createStringDirectedGraph();
+    graph.addEdge("A", "C", 2);
+    graph.addEdge("A", "B", 3);
+    graph.addEdge("B", "C");
+    graph.addEdge("C", "D");
+  }
+
+  @Test
+  public void should_copy_vertices_in_given_order() {
+    IndexedDirectedGraph<String, StringEdge> indexedGraph = IndexedDirectedGraph.copyOf(graph, Arrays.asList("C", "A", "B"));
+
+    assertThat(indexedGraph.getDimension()).isEqualTo(3);
+    assertThat(indexedGraph.getVertices()).containsOnly("C", "A", "B");
+    assertThat(indexedGraph.indexOf("C")).isEqualTo(0);
+    assertThat(indexedGraph.indexOf("B")).isEqualTo(2);
+    assertThat(indexedGraph.indexOf("D")).isEqualTo(-1);
+    assertThat(indexedGraph.getVertex(1)).isEqualTo("A");
+  }
+
+  @Test
+  public void should_only_keep_edges_between_copied_vertices() {
+    IndexedDirectedGraph<String, StringEdge> indexedGraph = IndexedDirectedGraph.copyOf(graph, Arrays.asList("A", "B", "C"));
+
+    assertThat(indexedGraph.getEdge("C", "D")).isNull();
+    assertThat(indexedGraph.getOutgoingEdges("C")).isEmpty();
+    assertThat(indexedGraph.getOutgoingEdges("D")).isEmpty();
+    assertThat(indexedGraph.hasEdge("A", "B")).isTrue();
+  }
+
+  @Test
+  public void should_get_edges() {
+    IndexedDirectedGraph<String, StringEdge> indexedGraph = IndexedDirectedGraph.copyOf(graph);
+
+    assertThat(indexedGraph.getEdge("A", "B")).isSameAs(graph.getEdge("A", "B"));
+    assertThat(indexedGraph.getEdge("A", "B").getWeight()).isEqualTo(3);
+    assertThat(indexedGraph.getEdge("B", "A")).isNull();
+    assertThat(indexedGraph.hasEdge("B", "A")).isFalse();
+    assertThat(indexedGraph.getOutgoingEdges("A")).containsOnly(new StringEdge("A", "B"), new StringEdge("A", "C"));
+    assertThat(indexedGraph.getIncomingEdges("C")).containsOnly(new StringEdge("A", "C"), new StringEdge("B", "C"));
+    assertThat(indexedGraph.getIncomingEdges("A")).isEmpty();
+  }
+
+  @Test
+  public void should_get_edges_by_index() {
+    IndexedDirectedGraph<String, StringEdge> indexedGraph = IndexedDirectedGraph.copyOf(graph, Arrays.asList("A", "B", "C", "D"));
+
+    // outgoing edges are sorted by index of target
+    assertThat(indexedGraph.getNumberOfOutgoingEdges(0)).isEqualTo(2);
+    assertThat(indexedGraph.getOutgoingTarget(0, 0)).isEqualTo(1);
+    assertThat(indexedGraph.getOutgoingTarget(0, 1)).isEqualTo(2);
+    assertThat(indexedGraph.getOutgoingEdge(0, 1).getWeight()).isEqualTo(2);
+    assertThat(indexedGraph.getEdge(1, 2)).isEqualTo(new StringEdge("B", "C"));
+    assertThat(indexedGraph.getEdge(2, 1)).isNull();
+
+    assertThat(indexedGraph.getNumberOfIncomingEdges(2)).isEqualTo(2);
+    assertThat(indexedGraph.getIncomingSource(2, 0)).isEqualTo(0);
+    assertThat(indexedGraph.getIncomingSource(2, 1)).isEqualTo(1);
+    assertThat(indexedGraph.getIncomingEdge(3, 0)).isEqualTo(new StringEdge("C", "D"));
+  }
+
+  @Test
+  public void should_build_same_dsm_as_generic_graph() {
+    Dsm<String> expected = new Dsm<String>(graph, Arrays.asList("A", "B", "C", "D"), Collections.<Edge>emptySet());
+    DsmTopologicalSorter.sort(expected);
+
+    Dsm<String> dsm = new Dsm<String>(IndexedDirectedGraph.copyOf(graph), Arrays.asList("A", "B", "C", "D"), Collections.<Edge>emptySet());
+    DsmTopologicalSorter.sort(dsm);
+
+    assertThat(DsmPrinter.print(dsm)).isEqualTo(DsmPrinter.print(expected));
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Restricts the resources that a {@link Decorator} is executed on. The method
+ * {@link Decorator#decorate(org.sonar.api.resources.Resource, DecoratorContext)} is not even called on the resources that
+ * do not match both the scopes and the qualifiers. An empty array matches any value.
+ * <p>
+ * Example: <code>@Decorates(scopes = {Scopes.PROJECT, Scopes.DIRECTORY})</code>
+ * </p>
+ *
+ * @see org.sonar.api.resources.Scopes
+ * @see org.sonar.api.resources.Qualifiers
+ * @since 4.2
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Decorates {
+
+  String[] scopes() default {};
+
+  String[] qualifiers() default {};
+}
@@ -0,0 +1,51 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link Sensor} that can be executed concurrently with the other sensors marked with this annotation,
+ * as soon as the extensions it depends upon (see {@link DependsUpon} and {@link DependedUpon}) are executed.
+ * <p>
+ * Only the calls to the {@link SensorContext} given to {@link Sensor#analyse(org.sonar.api.resources.Project, SensorContext)}
+ * are serialized. The other components of the batch are not thread-safe and are not synchronized, in particular
+ * {@link org.sonar.api.component.ResourcePerspectives} and the perspectives it returns, like
+ * {@link org.sonar.api.issue.Issuable}, and {@link org.sonar.api.scan.filesystem.ModuleFileSystem}.
+ * As a consequence such a sensor:
+ * </p>
+ * <ul>
+ *   <li>must report issues with {@link SensorContext#saveViolation(org.sonar.api.rules.Violation)}, not with {@link org.sonar.api.issue.Issuable}</li>
+ *   <li>must not use the components injected in its constructor, except to read immutable data like settings</li>
+ *   <li>must not share any state with other extensions</li>
+ * </ul>
+ * <p>
+ * A sensor that needs the file system or other perspectives must not be annotated.
+ * </p>
+ *
+ * @since 4.2
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Parallelizable {
+}
@@ -27,9 +27,13 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedMap;
 
 /**
+ * Values are stored in arrays of primitives indexed by line, as coverage sensors can set
+ * millions of lines. Negative lines and lines far beyond the size of a source file are stored in maps.
+ *
  * @since 2.7
  */
 public final class CoverageMeasuresBuilder {
@@ -42,29 +46,112 @@ public final class CoverageMeasuresBuilder {
     CoreMetrics.CONDITIONS_TO_COVER, CoreMetrics.UNCOVERED_CONDITIONS, CoreMetrics.CONDITIONS_BY_LINE,
     CoreMetrics.COVERED_CONDITIONS_BY_LINE);
 
+  private static final int INITIAL_CAPACITY = 64;
+  // lines from zero to this limit are stored in arrays, which never exceed 4MB each
+  private static final int MAX_CAPACITY = 1 << 20;
+  private static final int NO_HITS = Integer.MIN_VALUE;
 
   private int totalCoveredLines = 0, totalConditions = 0, totalCoveredConditions = 0;
-  private SortedMap<Integer, Integer> hitsByLine = Maps.newTreeMap();
-  private SortedMap<Integer, Integer> conditionsByLine = Maps.newTreeMap();
-  private SortedMap<Integer, Integer> coveredConditionsByLine = Maps.newTreeMap();
+  private int linesToCover = 0, linesWithConditions = 0;
+
+  // indexed by line. Lines without hits have the value NO_HITS, lines without conditions have zero conditions.
+  private int[] hitsByLine = newHits(INITIAL_CAPACITY);
+  private int[] conditionsByLine = new int[INITIAL_CAPACITY];
+  private int[] coveredConditionsByLine = new int[INITIAL_CAPACITY];
+
+  // lines that can not be stored in arrays
+  private final SortedMap<Integer, Integer> sparseHitsByLine = Maps.newTreeMap();
+  private final SortedMap<Integer, Integer> sparseConditionsByLine = Maps.newTreeMap();
+  private final SortedMap<Integer, Integer> sparseCoveredConditionsByLine = Maps.newTreeMap();
 
   private CoverageMeasuresBuilder() {
     // use the factory
   }
 
+  private static int[] newHits(int size) {
+    int[] hits = new int[size];
+    Arrays.fill(hits, NO_HITS);
+    return hits;
+  }
+
   public CoverageMeasuresBuilder reset() {
     totalCoveredLines = 0;
     totalConditions = 0;
     totalCoveredConditions = 0;
-    hitsByLine.clear();
-    conditionsByLine.clear();
-    coveredConditionsByLine.clear();
+    linesToCover = 0;
+    linesWithConditions = 0;
+    hitsByLine = newHits(INITIAL_CAPACITY);
+    conditionsByLine = new int[INITIAL_CAPACITY];
+    coveredConditionsByLine = new int[INITIAL_CAPACITY];
+    sparseHitsByLine.clear();
+    sparseConditionsByLine.clear();
+    sparseCoveredConditionsByLine.clear();
     return this;
   }
 
+  private static boolean isDense(int lineId) {
+    return lineId >= 0 && lineId < MAX_CAPACITY;
+  }
+
+  private void ensureCapacity(int lineId) {
+    if (lineId >= hitsByLine.length) {
+      int capacity = Math.min(MAX_CAPACITY, Math.max(lineId + 1, hitsByLine.length * 2));
+      int previousCapacity = hitsByLine.length;
+      hitsByLine = Arrays.copyOf(hitsByLine, capacity);
+      Arrays.fill(hitsByLine, previousCapacity, capacity, NO_HITS);
+      conditionsByLine = Arrays.copyOf(conditionsByLine, capacity);
+      coveredConditionsByLine = Arrays.copyOf(coveredConditionsByLine, capacity);
+    }
+  }
+
+  private int hitsAt(int lineId) {
+    if (isDense(lineId)) {
+      return lineId < hitsByLine.length ? hitsByLine[lineId] : NO_HITS;
+    }
+    Integer hits = sparseHitsByLine.get(lineId);
+    return hits == null ? NO_HITS : hits;
+  }
+
+  private void putHits(int lineId, int hits) {
+    if (isDense(lineId)) {
+      ensureCapacity(lineId);
+      hitsByLine[lineId] = hits;
+    } else {
+      sparseHitsByLine.put(lineId, hits);
+    }
+  }
+
+  private int conditionsAt(int lineId) {
+    if (isDense(lineId)) {
+      return lineId < conditionsByLine.length ? conditionsByLine[lineId] : 0;
+    }
+    Integer conditions = sparseConditionsByLine.get(lineId);
+    return conditions == null ? 0 : conditions;
+  }
+
+  private int coveredConditionsAt(int lineId) {
+    if (isDense(lineId)) {
+      return lineId < coveredConditionsByLine.length ? coveredConditionsByLine[lineId] : 0;
+    }
+    Integer coveredConditions = sparseCoveredConditionsByLine.get(lineId);
+    return coveredConditions == null ? 0 : coveredConditions;
+  }
+
+  private void putConditions(int lineId, int conditions, int coveredConditions) {
+    if (isDense(lineId)) {
+      ensureCapacity(lineId);
+      conditionsByLine[lineId] = conditions;
+      coveredConditionsByLine[lineId] = coveredConditions;
+    } else {
+      sparseConditionsByLine.put(lineId, conditions);
+      sparseCoveredConditionsByLine.put(lineId, coveredConditions);
+    }
+  }
+
   public CoverageMeasuresBuilder setHits(int lineId, int hits) {
-    if (!hitsByLine.containsKey(lineId)) {
-      hitsByLine.put(lineId, hits);
+    if (hitsAt(lineId) == NO_HITS) {
+      putHits(lineId, hits);
+      linesToCover++;
       if (hits > 0) {
         totalCoveredLines += 1;
       }
@@ -73,21 +160,72 @@ public final class CoverageMeasuresBuilder {
   }
 
   public CoverageMeasuresBuilder setConditions(int lineId, int conditions, int coveredConditions) {
-    if (conditions > 0 && !conditionsByLine.containsKey(lineId)) {
+    if (conditions > 0 && conditionsAt(lineId) == 0) {
       totalConditions += conditions;
       totalCoveredConditions += coveredConditions;
-      conditionsByLine.put(lineId, conditions);
-      coveredConditionsByLine.put(lineId, coveredConditions);
+      putConditions(lineId, conditions, coveredConditions);
+      linesWithConditions++;
+    }
+    return this;
+  }
+
+  /**
+   * Merge the coverage of the same file from another report, for example to compute overall coverage from
+   * unit and integration tests. Hits of lines are summed. For conditions, the greatest numbers of conditions
+   * and of covered conditions are kept.
+   *
+   * @since 4.2
+   */
+  public CoverageMeasuresBuilder merge(CoverageMeasuresBuilder other) {
+    for (int lineId = 0; lineId < other.hitsByLine.length; lineId++) {
+      mergeHits(lineId, other.hitsByLine[lineId]);
+      mergeConditions(lineId, other.conditionsByLine[lineId], other.coveredConditionsByLine[lineId]);
+    }
+    for (Map.Entry<Integer, Integer> entry : other.sparseHitsByLine.entrySet()) {
+      mergeHits(entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<Integer, Integer> entry : other.sparseConditionsByLine.entrySet()) {
+      mergeConditions(entry.getKey(), entry.getValue(), other.sparseCoveredConditionsByLine.get(entry.getKey()));
     }
     return this;
   }
 
+  private void mergeHits(int lineId, int otherHits) {
+    if (otherHits != NO_HITS) {
+      int hits = hitsAt(lineId);
+      if (hits == NO_HITS) {
+        setHits(lineId, otherHits);
+      } else {
+        putHits(lineId, hits + otherHits);
+        if (hits <= 0 && hits + otherHits > 0) {
+          totalCoveredLines += 1;
+        }
+      }
+    }
+  }
+
+  private void mergeConditions(int lineId, int otherConditions, int otherCoveredConditions) {
+    if (otherConditions > 0) {
+      int conditions = conditionsAt(lineId);
+      if (conditions == 0) {
+        setConditions(lineId, otherConditions, otherCoveredConditions);
+      } else {
+        int coveredConditions = coveredConditionsAt(lineId);
+        int mergedConditions = Math.max(conditions, otherConditions);
+        int mergedCoveredConditions = Math.min(mergedConditions, Math.max(coveredConditions, otherCoveredConditions));
+        totalConditions += mergedConditions - conditions;
+        totalCoveredConditions += mergedCoveredConditions - coveredConditions;
+        putConditions(lineId, mergedConditions, mergedCoveredConditions);
+      }
+    }
+  }
+
   public int getCoveredLines() {
     return totalCoveredLines;
   }
 
   public int getLinesToCover() {
-    return hitsByLine.size();
+    return linesToCover;
   }
 
   public int getConditions() {
@@ -99,15 +237,31 @@ public final class CoverageMeasuresBuilder {
   }
 
   public SortedMap<Integer, Integer> getHitsByLine() {
-    return Collections.unmodifiableSortedMap(hitsByLine);
+    SortedMap<Integer, Integer> result = Maps.newTreeMap(sparseHitsByLine);
+    for (int lineId = 0; lineId < hitsByLine.length; lineId++) {
+      if (hitsByLine[lineId] != NO_HITS) {
+        result.put(lineId, hitsByLine[lineId]);
+      }
+    }
+    return Collections.unmodifiableSortedMap(result);
   }
 
   public SortedMap<Integer, Integer> getConditionsByLine() {
-    return Collections.unmodifiableSortedMap(conditionsByLine);
+    return Collections.unmodifiableSortedMap(toConditionsMap(conditionsByLine, sparseConditionsByLine));
   }
 
   public SortedMap<Integer, Integer> getCoveredConditionsByLine() {
-    return Collections.unmodifiableSortedMap(coveredConditionsByLine);
+    return Collections.unmodifiableSortedMap(toConditionsMap(coveredConditionsByLine, sparseCoveredConditionsByLine));
+  }
+
+  private SortedMap<Integer, Integer> toConditionsMap(int[] valuesByLine, SortedMap<Integer, Integer> sparseValuesByLine) {
+    SortedMap<Integer, Integer> result = Maps.newTreeMap(sparseValuesByLine);
+    for (int lineId = 0; lineId < conditionsByLine.length; lineId++) {
+      if (conditionsByLine[lineId] > 0) {
+        result.put(lineId, valuesByLine[lineId]);
+      }
+    }
+    return result;
   }
 
   public Collection<Measure> createMeasures() {
@@ -115,7 +269,7 @@ public final class CoverageMeasuresBuilder {
     if (getLinesToCover() > 0) {
       measures.add(new Measure(CoreMetrics.LINES_TO_COVER, (double) getLinesToCover()));
       measures.add(new Measure(CoreMetrics.UNCOVERED_LINES, (double) (getLinesToCover() - getCoveredLines())));
-      measures.add(new Measure(CoreMetrics.COVERAGE_LINE_HITS_DATA).setData(KeyValueFormat.format(hitsByLine)).setPersistenceMode(PersistenceMode.DATABASE));
+      measures.add(new Measure(CoreMetrics.COVERAGE_LINE_HITS_DATA).setData(formatHitsByLine()).setPersistenceMode(PersistenceMode.DATABASE));
     }
     if (getConditions() > 0) {
       measures.add(new Measure(CoreMetrics.CONDITIONS_TO_COVER, (double) getConditions()));
@@ -126,15 +280,58 @@ public final class CoverageMeasuresBuilder {
     return measures;
   }
 
+  /**
+   * Same format as {@link KeyValueFormat#format(java.util.Map)}, for example "1=0;2=3"
+   */
+  private String formatHitsByLine() {
+    StringBuilder sb = new StringBuilder(linesToCover * 6);
+    if (!sparseHitsByLine.isEmpty()) {
+      return format(sb, getHitsByLine());
+    }
+    for (int lineId = 0; lineId < hitsByLine.length; lineId++) {
+      if (hitsByLine[lineId] != NO_HITS) {
+        appendPair(sb, lineId, hitsByLine[lineId]);
+      }
+    }
+    return sb.toString();
+  }
+
+  private String formatConditionsByLine(int[] valuesByLine, SortedMap<Integer, Integer> sparseValuesByLine) {
+    StringBuilder sb = new StringBuilder(linesWithConditions * 6);
+    if (!sparseValuesByLine.isEmpty()) {
+      return format(sb, toConditionsMap(valuesByLine, sparseValuesByLine));
+    }
+    for (int lineId = 0; lineId < conditionsByLine.length; lineId++) {
+      if (conditionsByLine[lineId] > 0) {
+        appendPair(sb, lineId, valuesByLine[lineId]);
+      }
+    }
+    return sb.toString();
+  }
+
+  private static String format(StringBuilder sb, SortedMap<Integer, Integer> valuesByLine) {
+    for (Map.Entry<Integer, Integer> entry : valuesByLine.entrySet()) {
+      appendPair(sb, entry.getKey(), entry.getValue());
+    }
+    return sb.toString();
+  }
+
+  private static void appendPair(StringBuilder sb, int lineId, int value) {
+    if (sb.length() > 0) {
+      sb.append(KeyValueFormat.PAIR_SEPARATOR);
+    }
+    sb.append(lineId).append(KeyValueFormat.FIELD_SEPARATOR).append(value);
+  }
+
   private Measure createCoveredConditionsByLine() {
     return new Measure(CoreMetrics.COVERED_CONDITIONS_BY_LINE)
-      .setData(KeyValueFormat.format(coveredConditionsByLine))
+      .setData(formatConditionsByLine(coveredConditionsByLine, sparseCoveredConditionsByLine))
       .setPersistenceMode(PersistenceMode.DATABASE);
   }
 
   private Measure createConditionsByLine() {
     return new Measure(CoreMetrics.CONDITIONS_BY_LINE)
-      .setData(KeyValueFormat.format(conditionsByLine))
+      .setData(formatConditionsByLine(conditionsByLine, sparseConditionsByLine))
       .setPersistenceMode(PersistenceMode.DATABASE);
   }
 
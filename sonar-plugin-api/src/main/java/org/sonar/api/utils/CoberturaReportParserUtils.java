@@ -55,34 +55,40 @@ public class CoberturaReportParserUtils {
   }
 
   /**
-   * Parse a Cobertura xml report and create measures accordingly
+   * Parse a Cobertura xml report and create measures accordingly.
+   * <p/>
+   * Coverage of classes of the same file is collected over the whole report, so each file is resolved once and
+   * its measures are saved once, after parsing.
    */
   public static void parseReport(File xmlFile, final SensorContext context, final FileResolver fileResolver) {
+    final Map<String, CoverageMeasuresBuilder> builderByFilename = Maps.newLinkedHashMap();
     try {
       StaxParser parser = new StaxParser(new StaxParser.XmlStreamHandler() {
 
         public void stream(SMHierarchicCursor rootCursor) throws XMLStreamException {
           rootCursor.advance();
-          collectPackageMeasures(rootCursor.descendantElementCursor("package"), context, fileResolver);
+          collectPackageMeasures(rootCursor.descendantElementCursor("package"), builderByFilename);
         }
       });
       parser.parse(xmlFile);
     } catch (XMLStreamException e) {
       throw new XmlParserException(e);
     }
+    saveMeasures(builderByFilename, context, fileResolver);
   }
 
-  private static void collectPackageMeasures(SMInputCursor pack, SensorContext context, final FileResolver fileResolver) throws XMLStreamException {
+  private static void collectPackageMeasures(SMInputCursor pack, Map<String, CoverageMeasuresBuilder> builderByFilename) throws XMLStreamException {
     while (pack.getNext() != null) {
-      Map<String, CoverageMeasuresBuilder> builderByFilename = Maps.newHashMap();
       collectFileMeasures(pack.descendantElementCursor("class"), builderByFilename);
-      for (Map.Entry<String, CoverageMeasuresBuilder> entry : builderByFilename.entrySet()) {
-        String filename = sanitizeFilename(entry.getKey());
-        Resource file = fileResolver.resolve(filename);
-        if (fileExists(context, file)) {
-          for (Measure measure : entry.getValue().createMeasures()) {
-            context.saveMeasure(file, measure);
-          }
+    }
+  }
+
+  private static void saveMeasures(Map<String, CoverageMeasuresBuilder> builderByFilename, SensorContext context, FileResolver fileResolver) {
+    for (Map.Entry<String, CoverageMeasuresBuilder> entry : builderByFilename.entrySet()) {
+      Resource file = fileResolver.resolve(entry.getKey());
+      if (fileExists(context, file)) {
+        for (Measure measure : entry.getValue().createMeasures()) {
+          context.saveMeasure(file, measure);
         }
       }
     }
@@ -94,7 +100,7 @@ public class CoberturaReportParserUtils {
 
   private static void collectFileMeasures(SMInputCursor clazz, Map<String, CoverageMeasuresBuilder> builderByFilename) throws XMLStreamException {
     while (clazz.getNext() != null) {
-      String fileName = clazz.getAttrValue("filename");
+      String fileName = sanitizeFilename(clazz.getAttrValue("filename"));
       CoverageMeasuresBuilder builder = builderByFilename.get(fileName);
       if (builder == null) {
         builder = CoverageMeasuresBuilder.create();
@@ -0,0 +1,276 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.utils;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * <p>Immutable values by line, stored in arrays of primitives sorted by line. It is a compact alternative to the maps
+ * returned by {@link KeyValueFormat#parseIntInt(String)} or {@link KeyValueFormat#parseIntDateTime(String)}
+ * for per-line data like coverage hits or SCM dates.</p>
+ *
+ * <p>It is read from the strings of {@link KeyValueFormat}, for example "1=3;2=0;5=1".</p>
+ *
+ * @since 4.2
+ */
+public final class LineData {
+
+  private static final LineData EMPTY = new LineData(new int[0], new long[0]);
+
+  private final int[] lines;
+  private final long[] values;
+
+  private LineData(int[] lines, long[] values) {
+    this.lines = lines;
+    this.values = values;
+  }
+
+  public static LineData empty() {
+    return EMPTY;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public int size() {
+    return lines.length;
+  }
+
+  public boolean isEmpty() {
+    return lines.length == 0;
+  }
+
+  /**
+   * Line at the given position. Lines are sorted in ascending order.
+   */
+  public int line(int index) {
+    return lines[index];
+  }
+
+  public long value(int index) {
+    return values[index];
+  }
+
+  public int intValue(int index) {
+    return (int) values[index];
+  }
+
+  public int[] lines() {
+    return lines.clone();
+  }
+
+  public long[] values() {
+    return values.clone();
+  }
+
+  /**
+   * @return the position of the line, or a negative value if the line has no value
+   */
+  public int indexOf(int line) {
+    return Arrays.binarySearch(lines, line);
+  }
+
+  public boolean contains(int line) {
+    return indexOf(line) >= 0;
+  }
+
+  public long get(int line, long defaultValue) {
+    int index = indexOf(line);
+    return index >= 0 ? values[index] : defaultValue;
+  }
+
+  public int getInt(int line, int defaultValue) {
+    int index = indexOf(line);
+    return index >= 0 ? (int) values[index] : defaultValue;
+  }
+
+  /**
+   * Parse the format of {@link KeyValueFormat#parseIntInt(String)}. Lines without value are ignored.
+   */
+  public static LineData parseIntInt(@Nullable String data) {
+    return parse(data, false);
+  }
+
+  /**
+   * Parse the format of {@link KeyValueFormat#parseIntDateTime(String)}. Values are numbers of milliseconds.
+   * Lines without value are ignored.
+   *
+   * @throws SonarException if a date does not respect the format {@link DateUtils#DATETIME_FORMAT}
+   */
+  public static LineData parseIntDateTime(@Nullable String data) {
+    return parse(data, true);
+  }
+
+  private static LineData parse(@Nullable String data, boolean dates) {
+    if (StringUtils.isEmpty(data)) {
+      return EMPTY;
+    }
+    Builder builder = new Builder();
+    int pairStart = 0;
+    while (pairStart < data.length()) {
+      int pairEnd = data.indexOf(KeyValueFormat.PAIR_SEPARATOR, pairStart);
+      if (pairEnd < 0) {
+        pairEnd = data.length();
+      }
+      int fieldSeparator = data.indexOf(KeyValueFormat.FIELD_SEPARATOR, pairStart);
+      if (fieldSeparator > pairStart && fieldSeparator < pairEnd - 1) {
+        int line = parseInt(data, pairStart, fieldSeparator);
+        if (dates) {
+          builder.add(line, DateUtils.parseDateTime(data.substring(fieldSeparator + 1, pairEnd)).getTime());
+        } else {
+          builder.add(line, parseInt(data, fieldSeparator + 1, pairEnd));
+        }
+      }
+      pairStart = pairEnd + 1;
+    }
+    return builder.build();
+  }
+
+  /**
+   * Parse integers without creating substrings. Falls back to {@link NumberUtils#toInt(String)}, so
+   * invalid numbers are parsed as 0 like in {@link KeyValueFormat}.
+   */
+  private static int parseInt(String data, int start, int end) {
+    int result = 0;
+    boolean negative = data.charAt(start) == '-';
+    int index = negative ? start + 1 : start;
+    if (index == end || end - index > 9) {
+      return NumberUtils.toInt(data.substring(start, end));
+    }
+    for (; index < end; index++) {
+      char c = data.charAt(index);
+      if (c < '0' || c > '9') {
+        return NumberUtils.toInt(data.substring(start, end));
+      }
+      result = result * 10 + (c - '0');
+    }
+    return negative ? -result : result;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    LineData other = (LineData) o;
+    return Arrays.equals(lines, other.lines) && Arrays.equals(values, other.values);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(lines) + Arrays.hashCode(values);
+  }
+
+  /**
+   * Same format as {@link KeyValueFormat#format(java.util.Map)}, for example "1=3;2=0;5=1"
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(lines.length * 6);
+    for (int index = 0; index < lines.length; index++) {
+      if (index > 0) {
+        sb.append(KeyValueFormat.PAIR_SEPARATOR);
+      }
+      sb.append(lines[index]).append(KeyValueFormat.FIELD_SEPARATOR).append(values[index]);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Values can be added in any order. When a line is added many times, the last value is kept.
+   */
+  public static final class Builder {
+    private int[] lines = new int[16];
+    private long[] values = new long[16];
+    private int size = 0;
+    private boolean sorted = true;
+
+    private Builder() {
+    }
+
+    public Builder add(int line, long value) {
+      if (size == lines.length) {
+        lines = Arrays.copyOf(lines, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+      }
+      if (size > 0 && line <= lines[size - 1]) {
+        sorted = false;
+      }
+      lines[size] = line;
+      values[size] = value;
+      size++;
+      return this;
+    }
+
+    public Builder add(int line, Date date) {
+      return add(line, date.getTime());
+    }
+
+    public LineData build() {
+      if (size == 0) {
+        return EMPTY;
+      }
+      if (!sorted) {
+        sort();
+      }
+      return new LineData(Arrays.copyOf(lines, size), Arrays.copyOf(values, size));
+    }
+
+    /**
+     * Stable sort of lines, then removal of duplicated lines by keeping the last added value
+     */
+    private void sort() {
+      long[] packed = new long[size];
+      for (int index = 0; index < size; index++) {
+        // line in the high bits, position of insertion in the low bits
+        packed[index] = ((long) lines[index] << 32) | index;
+      }
+      Arrays.sort(packed);
+      int[] sortedLines = new int[size];
+      long[] sortedValues = new long[size];
+      int count = 0;
+      for (long entry : packed) {
+        int line = (int) (entry >> 32);
+        long value = values[(int) entry];
+        if (count > 0 && sortedLines[count - 1] == line) {
+          sortedValues[count - 1] = value;
+        } else {
+          sortedLines[count] = line;
+          sortedValues[count] = value;
+          count++;
+        }
+      }
+      lines = sortedLines;
+      values = sortedValues;
+      size = count;
+      sorted = true;
+    }
+  }
+}
@@ -19,8 +19,9 @@
  */
 package org.sonar.api.utils;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang.StringUtils;
@@ -28,7 +29,8 @@ import org.apache.commons.lang.StringUtils;
 /**
  * Implementation of Ant-style matching patterns.
  * Contrary to other implementations (like AntPathMatcher from Spring Framework) it is based on {@link Pattern Java Regular Expressions}.
- * To increase performance it holds an internal cache of all processed patterns.
+ * To increase performance it holds an internal cache of the most recently used patterns, and patterns without wildcards
+ * or with a single trailing <code>**</code> are matched without regular expressions.
  * <p>
  * Following rules are applied:
  * <ul>
@@ -61,15 +63,54 @@ import org.apache.commons.lang.StringUtils;
  */
 public class WildcardPattern {
 
-  private static final Map<String, WildcardPattern> CACHE = new HashMap<String, WildcardPattern>();
+  static final int CACHE_MAX_SIZE = 10000;
+  private static final Map<String, WildcardPattern> CACHE = new LinkedHashMap<String, WildcardPattern>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, WildcardPattern> eldest) {
+      return size() > CACHE_MAX_SIZE;
+    }
+  };
+  private static final AtomicLong CACHE_HITS = new AtomicLong();
+  private static final AtomicLong CACHE_MISSES = new AtomicLong();
   private static final String SPECIAL_CHARS = "()[]^$.{}+|";
 
   private Pattern pattern;
   private String stringRepresentation;
 
+  /**
+   * Not null when the pattern can be evaluated without regular expression: either the whole expected value
+   * (see {@link #prefixOnly}) or its expected prefix.
+   */
+  private String literal;
+  private boolean prefixOnly;
+
   protected WildcardPattern(String pattern, String directorySeparator) {
     this.stringRepresentation = pattern;
-    this.pattern = Pattern.compile(toRegexp(pattern, directorySeparator));
+    if (!initLiteral(pattern, directorySeparator)) {
+      this.pattern = Pattern.compile(toRegexp(pattern, directorySeparator));
+    }
+  }
+
+  /**
+   * Patterns without wildcards, or whose only wildcard is a trailing "**", are converted to plain strings.
+   * The resulting behavior is strictly the same as the one of the regular expression.
+   */
+  private boolean initLiteral(String antPattern, String directorySeparator) {
+    if (directorySeparator.length() != 1 || Character.isLetterOrDigit(directorySeparator.charAt(0))) {
+      // such a separator is not a literal once escaped in the regular expression
+      return false;
+    }
+    String body = antPattern.startsWith("/") || antPattern.startsWith("\\") ? antPattern.substring(1) : antPattern;
+    boolean trailingWildcard = body.endsWith("**");
+    if (trailingWildcard) {
+      body = body.substring(0, body.length() - 2);
+    }
+    if (StringUtils.containsAny(body, "*?")) {
+      return false;
+    }
+    this.literal = body.replace('/', directorySeparator.charAt(0)).replace('\\', directorySeparator.charAt(0));
+    this.prefixOnly = trailingWildcard;
+    return true;
   }
 
   private static String toRegexp(String antPattern, String directorySeparator) {
@@ -141,7 +182,24 @@ public class WildcardPattern {
   public boolean match(String value) {
     value = StringUtils.removeStart(value, "/");
     value = StringUtils.removeEnd(value, "/");
-    return pattern.matcher(value).matches();
+    if (pattern != null) {
+      return pattern.matcher(value).matches();
+    }
+    if (prefixOnly) {
+      // "**" is translated to ".*", which does not match line terminators
+      return value.startsWith(literal) && !containsLineTerminator(value, literal.length());
+    }
+    return value.equals(literal);
+  }
+
+  private static boolean containsLineTerminator(String s, int from) {
+    for (int i = from; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
@@ -198,11 +256,55 @@ public class WildcardPattern {
    */
   public static WildcardPattern create(String pattern, String directorySeparator) {
     String key = pattern + directorySeparator;
-    WildcardPattern wildcardPattern = CACHE.get(key);
-    if (wildcardPattern == null) {
-      wildcardPattern = new WildcardPattern(pattern, directorySeparator);
+    WildcardPattern wildcardPattern;
+    synchronized (CACHE) {
+      wildcardPattern = CACHE.get(key);
+    }
+    if (wildcardPattern != null) {
+      CACHE_HITS.incrementAndGet();
+      return wildcardPattern;
+    }
+    CACHE_MISSES.incrementAndGet();
+    // compiled outside of the lock. Concurrent creations of the same pattern are harmless.
+    wildcardPattern = new WildcardPattern(pattern, directorySeparator);
+    synchronized (CACHE) {
       CACHE.put(key, wildcardPattern);
     }
     return wildcardPattern;
   }
+
+  static int cacheSize() {
+    synchronized (CACHE) {
+      return CACHE.size();
+    }
+  }
+
+  /**
+   * Number of calls to {@link #create(String, String)} served by the cache since the start of the JVM.
+   *
+   * @since 4.2
+   */
+  public static long cacheHits() {
+    return CACHE_HITS.get();
+  }
+
+  /**
+   * Number of calls to {@link #create(String, String)} that created a new pattern since the start of the JVM.
+   *
+   * @since 4.2
+   */
+  public static long cacheMisses() {
+    return CACHE_MISSES.get();
+  }
+
+  /**
+   * Ratio of calls to {@link #create(String, String)} served by the cache, between 0 and 1.
+   *
+   * @since 4.2
+   */
+  public static double cacheHitRate() {
+    long hits = CACHE_HITS.get();
+    long total = hits + CACHE_MISSES.get();
+    return total == 0 ? 0.0 : (double) hits / total;
+  }
 }
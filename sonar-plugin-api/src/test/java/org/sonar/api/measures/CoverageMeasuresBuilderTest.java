@@ -123,6 +123,68 @@ public class CoverageMeasuresBuilderTest {
     assertThat(builder.getCoveredConditionsByLine().size(), is(0));
   }
 
+  @Test
+  public void shouldSupportLinesBeyondInitialCapacity() {
+    CoverageMeasuresBuilder builder = CoverageMeasuresBuilder.create();
+    builder.setHits(10000, 1);
+    builder.setHits(3, 0);
+    builder.setConditions(5000, 2, 1);
+    assertThat(find(builder.createMeasures(), CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY).getData(), is("3=0;10000=1"));
+    assertThat(find(builder.createMeasures(), CoreMetrics.CONDITIONS_BY_LINE_KEY).getData(), is("5000=2"));
+    assertThat(builder.getLinesToCover(), is(2));
+  }
+
+  @Test
+  public void shouldMergeReports() {
+    CoverageMeasuresBuilder unitTests = CoverageMeasuresBuilder.create();
+    unitTests.setHits(1, 0);
+    unitTests.setHits(2, 3);
+    unitTests.setConditions(2, 4, 1);
+
+    CoverageMeasuresBuilder integrationTests = CoverageMeasuresBuilder.create();
+    integrationTests.setHits(1, 2);
+    integrationTests.setHits(3, 0);
+    integrationTests.setConditions(2, 4, 3);
+    integrationTests.setConditions(3, 2, 0);
+
+    CoverageMeasuresBuilder overall = CoverageMeasuresBuilder.create().merge(unitTests).merge(integrationTests);
+    assertThat(overall.getLinesToCover(), is(3));
+    assertThat(overall.getCoveredLines(), is(2));
+    assertThat(overall.getConditions(), is(6));
+    assertThat(overall.getCoveredConditions(), is(3));
+    assertThat(find(overall.createMeasures(), CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY).getData(), is("1=2;2=3;3=0"));
+    assertThat(find(overall.createMeasures(), CoreMetrics.COVERED_CONDITIONS_BY_LINE_KEY).getData(), is("2=3;3=0"));
+  }
+
+  @Test
+  public void shouldAcceptNegativeLines() {
+    CoverageMeasuresBuilder builder = CoverageMeasuresBuilder.create();
+    builder.setHits(-1, 2);
+    builder.setHits(1, 0);
+    builder.setConditions(-1, 2, 1);
+    assertThat(find(builder.createMeasures(), CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY).getData(), is("-1=2;1=0"));
+    assertThat(find(builder.createMeasures(), CoreMetrics.CONDITIONS_BY_LINE_KEY).getData(), is("-1=2"));
+    assertThat(find(builder.createMeasures(), CoreMetrics.COVERED_CONDITIONS_BY_LINE_KEY).getData(), is("-1=1"));
+    assertThat(builder.getLinesToCover(), is(2));
+    assertThat(builder.getCoveredLines(), is(1));
+  }
+
+  @Test
+  public void shouldNotAllocateArraysForHugeLines() {
+    CoverageMeasuresBuilder builder = CoverageMeasuresBuilder.create();
+    builder.setHits(Integer.MAX_VALUE, 1);
+    builder.setHits(2, 0);
+    builder.setConditions(Integer.MAX_VALUE, 4, 3);
+    assertThat(find(builder.createMeasures(), CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY).getData(), is("2=0;" + Integer.MAX_VALUE + "=1"));
+    assertThat(builder.getConditionsByLine().get(Integer.MAX_VALUE), is(4));
+    assertThat(builder.getCoveredConditions(), is(3));
+
+    CoverageMeasuresBuilder merged = CoverageMeasuresBuilder.create().merge(builder).merge(builder);
+    assertThat(merged.getHitsByLine().get(Integer.MAX_VALUE), is(2));
+    assertThat(merged.getConditions(), is(4));
+    assertThat(merged.getLinesToCover(), is(2));
+  }
+
   private Measure find(Collection<Measure> measures, String metricKey) {
     for (Measure measure : measures) {
       if (metricKey.equals(measure.getMetricKey())) {
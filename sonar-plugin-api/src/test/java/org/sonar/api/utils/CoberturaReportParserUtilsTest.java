@@ -222,6 +222,19 @@ public class CoberturaReportParserUtilsTest {
         argThat(new IsMeasure(CoreMetrics.LINES_TO_COVER, 5.0))); // do not count line 26 twice
   }
 
+  @Test
+  public void shouldSaveMeasuresOnceForFileDefinedInSeveralPackages() throws URISyntaxException {
+    File coverage = new File(getClass().getResource("/org/sonar/api/utils/CoberturaReportParserUtilsTest/shouldMergeFileDefinedInSeveralPackages.xml").toURI());
+    when(context.getResource(any(Resource.class))).thenReturn(new JavaFile("org.sonar.samples.MyFile"));
+    CoberturaReportParserUtils.parseReport(coverage, context, JAVA_FILE_RESOLVER);
+
+    JavaFile file = new JavaFile("org.sonar.samples.MyFile");
+    verify(context).saveMeasure(eq(file), argThat(new IsMeasure(CoreMetrics.LINES_TO_COVER, 4.0)));
+    verify(context).saveMeasure(eq(file), argThat(new IsMeasure(CoreMetrics.UNCOVERED_LINES, 2.0)));
+    verify(context).saveMeasure(eq(file), argThat(new IsMeasure(CoreMetrics.CONDITIONS_TO_COVER, 2.0)));
+    verify(context).saveMeasure(eq(file), argThat(new IsMeasure(CoreMetrics.COVERAGE_LINE_HITS_DATA, "22=2;25=0;26=1;27=0")));
+  }
+
   private File getCoverageReport() throws URISyntaxException {
     return new File(getClass().getResource("/org/sonar/api/utils/CoberturaReportParserUtilsTest/commons-chain-coverage.xml").toURI());
   }
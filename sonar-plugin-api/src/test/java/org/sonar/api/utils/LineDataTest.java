@@ -0,0 +1,75 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.utils;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class LineDataTest {
+
+  @Test
+  public void should_parse_int_int() {
+    LineData data = LineData.parseIntInt("1=3;2=0;10=12");
+
+    assertThat(data.size()).isEqualTo(3);
+    assertThat(data.lines()).isEqualTo(new int[]{1, 2, 10});
+    assertThat(data.values()).isEqualTo(new long[]{3L, 0L, 12L});
+    assertThat(data.getInt(10, -1)).isEqualTo(12);
+    assertThat(data.getInt(3, -1)).isEqualTo(-1);
+    assertThat(data.contains(2)).isTrue();
+    assertThat(data.toString()).isEqualTo("1=3;2=0;10=12");
+  }
+
+  @Test
+  public void should_parse_like_key_value_format() {
+    assertThat(LineData.parseIntInt(null).isEmpty()).isTrue();
+    assertThat(LineData.parseIntInt("").isEmpty()).isTrue();
+
+    // lines without value are ignored, invalid numbers are zero
+    LineData data = LineData.parseIntInt("5=2;;3=;4=foo;=7;1=-1");
+    assertThat(data.lines()).isEqualTo(new int[]{1, 4, 5});
+    assertThat(data.values()).isEqualTo(new long[]{-1L, 0L, 2L});
+  }
+
+  @Test
+  public void should_parse_int_date_time() {
+    Date date = DateUtils.parseDateTime("2013-05-18T12:30:00+0200");
+    LineData data = LineData.parseIntDateTime("1=2013-05-18T12:30:00+0200;2=2013-05-18T12:30:00+0200");
+
+    assertThat(data.get(2, 0L)).isEqualTo(date.getTime());
+    assertThat(data.get(1, 0L)).isEqualTo(date.getTime());
+  }
+
+  @Test(expected = SonarException.class)
+  public void should_fail_to_parse_invalid_date() {
+    LineData.parseIntDateTime("1=2013-05-18");
+  }
+
+  @Test
+  public void should_sort_lines_and_keep_last_value() {
+    LineData data = LineData.builder().add(10, 1L).add(2, 5L).add(10, 3L).add(1, 7L).build();
+
+    assertThat(data.lines()).isEqualTo(new int[]{1, 2, 10});
+    assertThat(data.values()).isEqualTo(new long[]{7L, 5L, 3L});
+  }
+}
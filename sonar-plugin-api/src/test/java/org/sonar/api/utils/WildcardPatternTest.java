@@ -182,6 +182,52 @@ public class WildcardPatternTest {
     assertThat(WildcardPattern.create((String[]) null).length, is(0));
   }
 
+  @Test
+  public void patternsWithoutWildcards() {
+    assertTrue(match("org/Foo.java", "org/Foo.java"));
+    assertTrue(match("org/Foo.java", "/org/Foo.java/"));
+    assertTrue(match("org\\Foo.java", "org/Foo.java"));
+    assertTrue(match("org/Foo", "org.Foo", "."));
+    assertFalse(match("org/Foo.java", "org/Foo_java"));
+    assertFalse(match("org/Foo.java", "org/Foo.java.bak"));
+    assertFalse(match("org/Foo", "org/Foo", "."));
+  }
+
+  @Test
+  public void patternsWithOnlyTrailingWildcard() {
+    assertTrue(match("org/**", "org/foo/Bar.java"));
+    assertTrue(match("org/**", "/org/foo/"));
+    assertTrue(match("org**", "org"));
+    assertTrue(match("org**", "organization/Foo.java"));
+    assertTrue(match("**", "org/Foo.java"));
+    assertTrue(match("org/**", "org.foo.Bar", "."));
+    assertFalse(match("org/**", "org"));
+    assertFalse(match("org/**", "com/org/Foo.java"));
+    assertFalse(match("org/**", "org/foo\nbar"));
+  }
+
+  @Test
+  public void shouldCachePatterns() {
+    long hits = WildcardPattern.cacheHits();
+    long misses = WildcardPattern.cacheMisses();
+
+    WildcardPattern pattern = WildcardPattern.create("shouldCachePatterns/**", "/");
+    assertThat(WildcardPattern.create("shouldCachePatterns/**", "/") == pattern, is(true));
+    assertThat(WildcardPattern.create("shouldCachePatterns/**", ".") == pattern, is(false));
+
+    assertThat(WildcardPattern.cacheHits() - hits, is(1L));
+    assertThat(WildcardPattern.cacheMisses() - misses, is(2L));
+    assertThat(WildcardPattern.cacheHitRate() > 0.0, is(true));
+  }
+
+  @Test
+  public void shouldBoundCache() {
+    for (int i = 0; i < WildcardPattern.CACHE_MAX_SIZE + 10; i++) {
+      WildcardPattern.create("shouldBoundCache" + i);
+    }
+    assertThat(WildcardPattern.cacheSize(), is(WildcardPattern.CACHE_MAX_SIZE));
+  }
+
   @Test
   public void testToString() {
     assertThat(WildcardPattern.create("foo*").toString(), is("foo*"));
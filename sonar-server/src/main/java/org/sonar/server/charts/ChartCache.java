@@ -0,0 +1,103 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.charts;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.ServerComponent;
+
+import javax.annotation.CheckForNull;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * PNG images of the charts that have already been rendered. Charts receive their data through their parameters, so a
+ * rendered image is identified by the digest of its parameters. The least recently used images are evicted when
+ * the total size of the cache exceeds its limit.
+ *
+ * @since 4.2
+ */
+public class ChartCache implements ServerComponent {
+
+  static final long DEFAULT_MAX_BYTES = 10L * 1024 * 1024;
+
+  private final long maxBytes;
+  private final Map<String, byte[]> pngsByKey = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+  private long bytes = 0L;
+
+  public ChartCache() {
+    this(DEFAULT_MAX_BYTES);
+  }
+
+  @VisibleForTesting
+  ChartCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Digest of the parameters of a chart, whatever their order. Null values are ignored.
+   */
+  public static String key(Map<String, String> params) {
+    StringBuilder sb = new StringBuilder();
+    for (Map.Entry<String, String> entry : new TreeMap<String, String>(params).entrySet()) {
+      if (entry.getValue() != null) {
+        sb.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+      }
+    }
+    try {
+      return DigestUtils.sha1Hex(sb.toString().getBytes("UTF-8"));
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException("UTF-8 is not supported", e);
+    }
+  }
+
+  @CheckForNull
+  public synchronized byte[] get(String key) {
+    return pngsByKey.get(key);
+  }
+
+  public synchronized void put(String key, byte[] png) {
+    if (png.length > maxBytes) {
+      return;
+    }
+    byte[] previous = pngsByKey.put(key, png);
+    if (previous != null) {
+      bytes -= previous.length;
+    }
+    bytes += png.length;
+    Iterator<byte[]> eldest = pngsByKey.values().iterator();
+    while (bytes > maxBytes) {
+      bytes -= eldest.next().length;
+      eldest.remove();
+    }
+  }
+
+  public synchronized int size() {
+    return pngsByKey.size();
+  }
+
+  public synchronized long sizeInBytes() {
+    return bytes;
+  }
+}
@@ -24,8 +24,10 @@ import com.google.common.io.Closeables;
 import org.jfree.chart.encoders.KeypointPNGEncoderAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sonar.api.charts.Cacheable;
 import org.sonar.api.charts.Chart;
 import org.sonar.api.charts.ChartParameters;
+import org.sonar.api.utils.AnnotationUtils;
 import org.sonar.server.charts.deprecated.BarChart;
 import org.sonar.server.charts.deprecated.BaseChartWeb;
 import org.sonar.server.charts.deprecated.CustomBarChart;
@@ -34,48 +36,66 @@ import org.sonar.server.charts.deprecated.PieChart;
 import org.sonar.server.charts.deprecated.SparkLinesChart;
 import org.sonar.server.platform.Platform;
 
+import javax.annotation.Nullable;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Enumeration;
 import java.util.Map;
 
+/**
+ * Images of the deprecated charts and of the charts annotated with {@link Cacheable} only depend on the parameters
+ * of the URL. They are kept in {@link ChartCache} and by browsers. Other charts can read data from
+ * the database, so they are generated on each request.
+ */
 public class ChartsServlet extends HttpServlet {
 
   private static final Logger LOG = LoggerFactory.getLogger(ChartsServlet.class);
   private static final long serialVersionUID = 669857447198433893L;
 
+  private static final String CACHE_CONTROL = "private, max-age=86400";
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
     if (isDeprecatedChart(request)) {
       deprecatedDoGet(request, response);
 
     } else {
-      ChartFactory chartFactory = Platform.getInstance().getContainer().getComponentByType(ChartFactory.class);
-      Chart chart = chartFactory.getChart(request.getParameter("ck"));
+      Chart chart = getChartFactory().getChart(request.getParameter("ck"));
       if (chart != null) {
-        BufferedImage image = chart.generateImage(getParams(request));
-        OutputStream out = response.getOutputStream();
+        Map<String, String> params = getParams(request);
+        String key = isCacheable(chart) ? ChartCache.key(params) : null;
+        if (key != null && !isModified(request, response, key)) {
+          return;
+        }
         try {
-          response.setContentType("image/png");
-          exportAsPNG(image, out);
+          byte[] png = key != null ? getCache().get(key) : null;
+          if (png == null) {
+            BufferedImage image = chart.generateImage(new ChartParameters(params));
+            png = exportAsPNG(image);
+            if (key != null) {
+              getCache().put(key, png);
+            }
+          }
+          write(response, key, png);
 
         } catch (Exception e) {
           LOG.error("Generating chart " + chart.getClass().getName(), e);
 
         } finally {
-          out.close();
+          response.getOutputStream().close();
         }
       }
     }
   }
 
-  private ChartParameters getParams(HttpServletRequest request) {
+  private Map<String, String> getParams(HttpServletRequest request) {
     Map<String, String> map = Maps.newHashMap();
     Enumeration keys = request.getParameterNames();
     while (keys.hasMoreElements()) {
@@ -83,13 +103,55 @@ public class ChartsServlet extends HttpServlet {
       String value = request.getParameter(key);
       map.put(key, value);
     }
-    return new ChartParameters(map);
+    return map;
+  }
+
+  ChartFactory getChartFactory() {
+    return Platform.getInstance().getContainer().getComponentByType(ChartFactory.class);
   }
 
-  private void exportAsPNG(BufferedImage image, OutputStream out) throws IOException {
+  ChartCache getCache() {
+    return Platform.getInstance().getContainer().getComponentByType(ChartCache.class);
+  }
+
+  private static boolean isCacheable(Chart chart) {
+    return AnnotationUtils.getAnnotation(chart, Cacheable.class) != null;
+  }
+
+  /**
+   * The ETag of an image is the digest of its parameters
+   */
+  private static boolean isModified(HttpServletRequest request, HttpServletResponse response, String key) {
+    if (etag(key).equals(request.getHeader("If-None-Match"))) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return false;
+    }
+    return true;
+  }
+
+  private static String etag(String key) {
+    return "\"" + key + "\"";
+  }
+
+  /**
+   * @param key null if the image must not be cached
+   */
+  private static void write(HttpServletResponse response, @Nullable String key, byte[] png) throws IOException {
+    response.setContentType("image/png");
+    response.setContentLength(png.length);
+    if (key != null) {
+      response.setHeader("ETag", etag(key));
+      response.setHeader("Cache-Control", CACHE_CONTROL);
+    }
+    response.getOutputStream().write(png);
+  }
+
+  private byte[] exportAsPNG(BufferedImage image) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
     KeypointPNGEncoderAdapter encoder = new KeypointPNGEncoderAdapter();
     encoder.setEncodingAlpha(true);
     encoder.encode(image, out);
+    return out.toByteArray();
   }
 
   public boolean isDeprecatedChart(HttpServletRequest request) {
@@ -145,11 +207,21 @@ public class ChartsServlet extends HttpServlet {
     }
 
     if (chart != null) {
+      String key = ChartCache.key(params);
+      if (!isModified(request, response, key)) {
+        return;
+      }
       OutputStream out = null;
       try {
         out = response.getOutputStream();
-        response.setContentType("image/png");
-        chart.exportChartAsPNG(out);
+        byte[] png = getCache().get(key);
+        if (png == null) {
+          ByteArrayOutputStream output = new ByteArrayOutputStream();
+          chart.exportChartAsPNG(output);
+          png = output.toByteArray();
+          getCache().put(key, png);
+        }
+        write(response, key, png);
       } catch (Exception e) {
         LOG.error("Generating chart " + chart.getClass().getName(), e);
       } finally {
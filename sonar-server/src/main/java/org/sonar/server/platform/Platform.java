@@ -47,6 +47,7 @@ import org.sonar.core.issue.IssueUpdater;
 import org.sonar.core.issue.workflow.FunctionExecutor;
 import org.sonar.core.issue.workflow.IssueWorkflow;
 import org.sonar.core.measure.MeasureFilterEngine;
+import org.sonar.core.measure.DrilldownExecutor;
 import org.sonar.core.measure.MeasureFilterExecutor;
 import org.sonar.core.measure.MeasureFilterFactory;
 import org.sonar.core.metric.DefaultMetricFinder;
@@ -58,11 +59,13 @@ import org.sonar.core.profiling.Profiling;
 import org.sonar.core.purge.PurgeProfiler;
 import org.sonar.core.resource.DefaultResourcePermissions;
 import org.sonar.core.rule.DefaultRuleFinder;
+import org.sonar.core.source.DecoratedSourceCache;
 import org.sonar.core.source.HtmlSourceDecorator;
 import org.sonar.core.technicaldebt.*;
 import org.sonar.core.test.TestPlanPerspectiveLoader;
 import org.sonar.core.test.TestablePerspectiveLoader;
 import org.sonar.core.timemachine.Periods;
+import org.sonar.core.timemachine.TimeSeriesFinder;
 import org.sonar.core.user.DefaultUserFinder;
 import org.sonar.core.user.HibernateUserFinder;
 import org.sonar.jpa.dao.MeasuresDao;
@@ -72,6 +75,7 @@ import org.sonar.jpa.session.DatabaseSessionFactory;
 import org.sonar.jpa.session.DatabaseSessionProvider;
 import org.sonar.jpa.session.DefaultDatabaseConnector;
 import org.sonar.jpa.session.ThreadLocalDatabaseSessionFactory;
+import org.sonar.server.charts.ChartCache;
 import org.sonar.server.charts.ChartFactory;
 import org.sonar.server.component.DefaultComponentFinder;
 import org.sonar.server.component.DefaultRubyComponentService;
@@ -235,6 +239,7 @@ public final class Platform {
     servicesContainer.addSingleton(ServerIdGenerator.class);
     // depends on plugins
     servicesContainer.addSingleton(ChartFactory.class);
+    servicesContainer.addSingleton(ChartCache.class);
     servicesContainer.addSingleton(Languages.class);
     servicesContainer.addSingleton(Views.class);
     servicesContainer.addSingleton(CodeColorizers.class);
@@ -261,9 +266,11 @@ public final class Platform {
     servicesContainer.addSingleton(MeasureFilterFactory.class);
     servicesContainer.addSingleton(MeasureFilterExecutor.class);
     servicesContainer.addSingleton(MeasureFilterEngine.class);
+    servicesContainer.addSingleton(DrilldownExecutor.class);
     servicesContainer.addSingleton(PreviewCache.class);
     servicesContainer.addSingleton(DefaultResourcePermissions.class);
     servicesContainer.addSingleton(Periods.class);
+    servicesContainer.addSingleton(TimeSeriesFinder.class);
 
     // users
     servicesContainer.addSingleton(HibernateUserFinder.class);
@@ -339,6 +346,7 @@ public final class Platform {
     servicesContainer.addSingleton(TestablePerspectiveLoader.class);
     servicesContainer.addSingleton(TestPlanPerspectiveLoader.class);
     servicesContainer.addSingleton(SnapshotPerspectives.class);
+    servicesContainer.addSingleton(DecoratedSourceCache.class);
     servicesContainer.addSingleton(HtmlSourceDecorator.class);
 
     ServerExtensionInstaller extensionRegistrar = servicesContainer.getComponentByType(ServerExtensionInstaller.class);
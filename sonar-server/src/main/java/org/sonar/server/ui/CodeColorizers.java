@@ -35,25 +35,38 @@ import java.util.Map;
 
 public class CodeColorizers implements ServerExtension {
 
+  private static final CodeColorizer NO_COLORIZER = new CodeColorizer(Collections.<Tokenizer>emptyList());
+
   private Map<String, CodeColorizerFormat> formatPerLanguage;
 
+  // colorizers are thread-safe and reuse their tokenizers between renderings
+  private Map<String, CodeColorizer> colorizerPerLanguage;
+
   public CodeColorizers(List<CodeColorizerFormat> formats) {
     formatPerLanguage = new HashMap<String, CodeColorizerFormat>();
+    colorizerPerLanguage = new HashMap<String, CodeColorizer>();
     for (CodeColorizerFormat format : formats) {
       formatPerLanguage.put(format.getLanguageKey(), format);
+      colorizerPerLanguage.put(format.getLanguageKey(), new CodeColorizer(format.getTokenizers()));
     }
 
     Logs.INFO.info("Code colorizer, supported languages: " + StringUtils.join(formatPerLanguage.keySet(), ","));
   }
 
   public String toHtml(String code, String language) {
-    List<Tokenizer> tokenizers;
-    CodeColorizerFormat format = formatPerLanguage.get(language);
-    if (format == null) {
-      tokenizers = Collections.emptyList();
-    } else {
-      tokenizers = format.getTokenizers();
+    StringBuilder html = new StringBuilder(code.length() * 2);
+    toHtml(code, language, html);
+    return html.toString();
+  }
+
+  /**
+   * @since 4.2
+   */
+  public void toHtml(String code, String language, Appendable output) {
+    CodeColorizer colorizer = colorizerPerLanguage.get(language);
+    if (colorizer == null) {
+      colorizer = NO_COLORIZER;
     }
-    return new CodeColorizer(tokenizers).toHtml(new StringReader(code), HtmlOptions.ONLY_SYNTAX);
+    colorizer.toHtml(new StringReader(code), HtmlOptions.ONLY_SYNTAX, output);
   }
 }
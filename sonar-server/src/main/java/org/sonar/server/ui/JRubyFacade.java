@@ -42,6 +42,9 @@ import org.sonar.api.test.Testable;
 import org.sonar.api.utils.ValidationMessages;
 import org.sonar.api.web.*;
 import org.sonar.core.component.SnapshotPerspectives;
+import org.sonar.core.measure.DrilldownExecutor;
+import org.sonar.core.measure.DrilldownQuery;
+import org.sonar.core.measure.DrilldownRow;
 import org.sonar.core.measure.MeasureFilterEngine;
 import org.sonar.core.measure.MeasureFilterResult;
 import org.sonar.core.persistence.Database;
@@ -50,6 +53,8 @@ import org.sonar.core.purge.PurgeDao;
 import org.sonar.core.resource.ResourceIndexerDao;
 import org.sonar.core.resource.ResourceKeyUpdaterDao;
 import org.sonar.core.timemachine.Periods;
+import org.sonar.core.timemachine.TimeSeries;
+import org.sonar.core.timemachine.TimeSeriesFinder;
 import org.sonar.server.configuration.Backup;
 import org.sonar.server.configuration.ProfilesManager;
 import org.sonar.server.db.migrations.DatabaseMigrator;
@@ -90,6 +95,10 @@ public final class JRubyFacade {
     return get(MeasureFilterEngine.class).execute(map, userId);
   }
 
+  public List<DrilldownRow> executeDrilldown(DrilldownQuery query) {
+    return get(DrilldownExecutor.class).execute(query);
+  }
+
   public Collection<ResourceType> getResourceTypesForFilter() {
     return get(ResourceTypes.class).getAll(ResourceTypes.AVAILABLE_FOR_FILTERS);
   }
@@ -487,6 +496,10 @@ public final class JRubyFacade {
     return get(Periods.class).abbreviation(periodIndex);
   }
 
+  public TimeSeries getTimeSeries(long resourceId, List<Long> metricIds, @Nullable Long from, @Nullable Long to, int maxPoints) {
+    return get(TimeSeriesFinder.class).find(resourceId, metricIds, from, to, maxPoints);
+  }
+
   public TestPlan testPlan(long snapshotId) {
     return get(SnapshotPerspectives.class).as(MutableTestPlan.class, snapshotId);
   }
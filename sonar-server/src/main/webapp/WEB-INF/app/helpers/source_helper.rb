@@ -73,18 +73,30 @@ module SourceHelper
       end
 
       panel.html_lines=[]
-      html_source_lines = snapshot.highlighted_source_lines || snapshot.source.syntax_highlighted_lines()
-      line_range=sanitize_range(options[:line_range], 1..html_source_lines.length)
+      # when a range is given, only the requested lines are returned. The whole source is decorated and cached on
+      # the first request, so that the next snippets of the same file (issues for example) are read from the cache.
+      first_line=1
+      html_source_lines=nil
+      if options[:line_range] && options[:line_range].min
+        first_line=[options[:line_range].min, 1].max
+        html_source_lines=snapshot.highlighted_source_lines(first_line, options[:line_range].max)
+      end
+      unless html_source_lines
+        first_line=1
+        html_source_lines = snapshot.highlighted_source_lines || snapshot.source.syntax_highlighted_lines()
+      end
+      line_range=sanitize_range(options[:line_range], 1..(first_line + html_source_lines.length - 1))
 
       html_source_lines.each_with_index do |source, index|
-        if line_range.include?(index+1)
-          html_line=HtmlLine.new(source, index+1)
-          html_line.revision=revisions_by_line[index+1]
-          html_line.author=authors_by_line[index+1]
-          if options[:highlighted_lines] && options[:highlighted_lines].include?(index+1)
+        line=first_line+index
+        if line_range.include?(line)
+          html_line=HtmlLine.new(source, line)
+          html_line.revision=revisions_by_line[line]
+          html_line.author=authors_by_line[line]
+          if options[:highlighted_lines] && options[:highlighted_lines].include?(line)
             html_line.set_focus
           end
-          date_string=dates_by_line[index+1]
+          date_string=dates_by_line[line]
           html_line.datetime=(date_string ? Java::OrgSonarApiUtils::DateUtils.parseDateTime(date_string) : nil)
           panel.html_lines<<html_line
         end
@@ -86,57 +86,33 @@ class DrilldownColumn
 
   def init_measures(options)
     value_column = (options[:period] ? "variation_value_#{options[:period]}" : 'value')
-    order="project_measures.#{value_column}"
-    if @drilldown.metric.direction<0
-      order += ' DESC'
-    end
-
-    conditions="snapshots.root_snapshot_id=:root_sid AND snapshots.islast=:islast AND snapshots.qualifier in (:qualifiers) " +
-        " AND snapshots.path LIKE :path AND project_measures.metric_id=:metric_id AND project_measures.#{value_column} IS NOT NULL"
-    condition_values={
-        :root_sid => (@base_snapshot.root_snapshot_id || @base_snapshot.id),
-        :islast => true,
-        :qualifiers => @qualifiers,
-        :metric_id => @drilldown.metric.id,
-        :path => "#{@base_snapshot.path}#{@base_snapshot.id}.%"}
 
+    # measures are filtered, sorted and limited by the Java server
+    query=Java::OrgSonarCoreMeasure::DrilldownQuery.new
+    query.setRootSnapshotId(@base_snapshot.root_snapshot_id || @base_snapshot.id)
+    query.setBasePath("#{@base_snapshot.path}#{@base_snapshot.id}.")
+    query.setQualifiers(@qualifiers)
+    query.setMetricId(@drilldown.metric.id)
+    query.setPeriod(options[:period].to_i) if options[:period]
+    query.setDescending(@drilldown.metric.direction<0)
     if value_column=='value' && @drilldown.metric.best_value
-      conditions<<' AND project_measures.value<>:best_value'
-      condition_values[:best_value]=@drilldown.metric.best_value
+      query.setExcludedValue(@drilldown.metric.best_value.to_f)
     end
-
-    if options[:exclude_zero_value] || (options[:period] && !@drilldown.metric.on_new_code?)
-      conditions += " AND project_measures.#{value_column}<>0"
+    query.setExcludeZeroValue(true) if options[:exclude_zero_value] || (options[:period] && !@drilldown.metric.on_new_code?)
+    query.setRuleId(options[:rule_id].to_i) if options[:rule_id]
+    query.setCharacteristicId(options[:characteristic].id) if options[:characteristic]
+    query.setPersonId(@person_id) if @person_id
+    query.setLimit(200)
+
+    @measures=Api::Utils.java_facade.executeDrilldown(query).map do |row|
+      measure=ProjectMeasure.new(:metric_id => @drilldown.metric.id, :snapshot_id => row.getSnapshotId(),
+                                 value_column => row.getValue(), :text_value => row.getTextValue(),
+                                 :alert_status => row.getAlertStatus(), :alert_text => row.getAlertText())
+      measure.id=row.getMeasureId()
+      measure.readonly!
+      measure
     end
 
-    if options[:rule_id]
-      conditions += ' AND project_measures.rule_id=:rule'
-      condition_values[:rule]=options[:rule_id]
-    else
-      conditions += ' AND project_measures.rule_id IS NULL '
-    end
-
-    if options[:characteristic]
-      conditions += ' AND project_measures.characteristic_id=:characteristic_id'
-      condition_values[:characteristic_id]=options[:characteristic].id
-    else
-      conditions += ' AND project_measures.characteristic_id IS NULL'
-    end
-
-    if @person_id
-      conditions += ' AND project_measures.person_id=:person_id'
-      condition_values[:person_id]=@person_id
-    else
-      conditions += ' AND project_measures.person_id IS NULL'
-    end
-
-    @measures=ProjectMeasure.all(
-        :select => "project_measures.id,project_measures.metric_id,project_measures.#{value_column},project_measures.text_value,project_measures.alert_status,project_measures.alert_text,project_measures.snapshot_id",
-        :joins => :snapshot,
-        :conditions => [conditions, condition_values],
-        :order => order,
-        :limit => 200)
-
     @resource_per_sid={}
     sids=@measures.map { |m| m.snapshot_id }.compact.uniq
     unless sids.empty?
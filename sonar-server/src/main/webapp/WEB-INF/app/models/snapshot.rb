@@ -251,8 +251,12 @@ class Snapshot < ActiveRecord::Base
       end
   end
 
-  def highlighted_source_lines
-    Internal.text.highlightedSourceLines(id)
+  def highlighted_source_lines(from=nil, to=nil)
+    if from && to
+      Internal.text.highlightedSourceLines(id, from, to)
+    else
+      Internal.text.highlightedSourceLines(id)
+    end
   end
 
   def has_source
@@ -19,31 +19,29 @@
 #
 class TrendsChart
 
+  #
+  # Numeric measures of the resource on its successive analyses, ordered by date. The time series are loaded and cached
+  # by the Java server (see TimeSeriesFinder).
+  #
   def self.time_machine_measures(resource, metric_ids, options={})
+    rows=[]
     unless metric_ids.empty?
-      sql= "select s.created_at as created_at, m.value as value, m.metric_id as metric_id, s.id as sid " +
-            " from project_measures m LEFT OUTER JOIN snapshots s ON s.id=m.snapshot_id " +
-            " where m.rule_id is null " +
-            " and s.status=? " +
-            " and s.project_id=? " +
-            " and m.metric_id in (?) " +
-            " and m.rule_priority is null and m.characteristic_id is null and m.person_id is null"
-      if (options[:from])
-        sql += ' and s.created_at>=?'
+      from=(options[:from] ? options[:from].to_time.to_i * 1000 : nil)
+      to=(options[:to] ? options[:to].to_time.to_i * 1000 : nil)
+      series=Api::Utils.java_facade.getTimeSeries(resource.id, metric_ids.map { |id| id.to_i }, from, to, options[:max_points] || 0)
+      sids=series.snapshotIds
+      dates=series.dates
+      values_by_metric_id={}
+      series.metricIds.each { |metric_id| values_by_metric_id[metric_id]=series.values(metric_id) }
+      (0...sids.size).each do |index|
+        created_at=Time.at(dates[index]/1000)
+        values_by_metric_id.each_pair do |metric_id, values|
+          value=values[index]
+          rows << {'created_at' => created_at, 'value' => value, 'metric_id' => metric_id, 'sid' => sids[index]} unless value.nan?
+        end
       end
-      if (options[:to])
-        sql += ' and s.created_at<=?'
-      end
-      sql += ' order by s.created_at ASC'
-      conditions=[sql, Snapshot::STATUS_PROCESSED, resource.id, metric_ids]
-      if (options[:from])
-        conditions<<options[:from]
-      end
-      if (options[:to])
-        conditions<<options[:to]
-      end
-      ProjectMeasure.connection.select_all(Project.send(:sanitize_sql, conditions))
     end
+    rows
   end
 
 end
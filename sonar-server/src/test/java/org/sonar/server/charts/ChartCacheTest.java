@@ -0,0 +1,91 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.charts;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ChartCacheTest {
+
+  @Test
+  public void key_should_not_depend_on_order_of_parameters() {
+    Map<String, String> params = ImmutableMap.of("ck", "xradar", "v", "1,2,3", "w", "200");
+    Map<String, String> sameParams = ImmutableMap.of("w", "200", "v", "1,2,3", "ck", "xradar");
+    Map<String, String> otherParams = ImmutableMap.of("ck", "xradar", "v", "1,2,4", "w", "200");
+
+    assertThat(ChartCache.key(params)).isEqualTo(ChartCache.key(sameParams));
+    assertThat(ChartCache.key(params)).isNotEqualTo(ChartCache.key(otherParams));
+    assertThat(ChartCache.key(params)).hasSize(40);
+  }
+
+  @Test
+  public void key_should_ignore_null_parameters() {
+    Map<String, String> params = Collections.singletonMap("ck", "xradar");
+    Map<String, String> withNull = Maps.newHashMap(params);
+    withNull.put("v", null);
+
+    assertThat(ChartCache.key(withNull)).isEqualTo(ChartCache.key(params));
+  }
+
+  @Test
+  public void should_cache_images() {
+    ChartCache cache = new ChartCache();
+    assertThat(cache.get("foo")).isNull();
+
+    cache.put("foo", new byte[] {1, 2, 3});
+    assertThat(cache.get("foo")).isEqualTo(new byte[] {1, 2, 3});
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.sizeInBytes()).isEqualTo(3L);
+
+    cache.put("foo", new byte[] {1, 2});
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.sizeInBytes()).isEqualTo(2L);
+  }
+
+  @Test
+  public void should_evict_least_recently_used_images() {
+    ChartCache cache = new ChartCache(10L);
+    cache.put("first", new byte[4]);
+    cache.put("second", new byte[4]);
+    // first is now more recently used than second
+    cache.get("first");
+
+    cache.put("third", new byte[4]);
+    assertThat(cache.get("second")).isNull();
+    assertThat(cache.get("first")).isNotNull();
+    assertThat(cache.get("third")).isNotNull();
+    assertThat(cache.sizeInBytes()).isEqualTo(8L);
+  }
+
+  @Test
+  public void should_not_cache_images_bigger_than_limit() {
+    ChartCache cache = new ChartCache(10L);
+    cache.put("big", new byte[11]);
+
+    assertThat(cache.get("big")).isNull();
+    assertThat(cache.sizeInBytes()).isEqualTo(0L);
+  }
+}
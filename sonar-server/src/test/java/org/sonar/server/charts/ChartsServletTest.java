@@ -0,0 +1,141 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.charts;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.charts.Cacheable;
+import org.sonar.api.charts.Chart;
+import org.sonar.api.charts.ChartParameters;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ChartsServletTest {
+
+  ChartCache cache = new ChartCache();
+  ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+  @Test
+  public void should_return_not_modified_if_image_is_cached() throws Exception {
+    CountingChart chart = new CacheableChart();
+    ChartsServlet servlet = newServlet(chart);
+
+    HttpServletResponse response = newResponse();
+    servlet.doGet(newRequest(chart, null), response);
+
+    ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+    verify(response).setHeader(eq("ETag"), etag.capture());
+    verify(response).setHeader(eq("Cache-Control"), anyString());
+    assertThat(output.size()).isGreaterThan(0);
+    assertThat(chart.generations).isEqualTo(1);
+
+    response = newResponse();
+    servlet.doGet(newRequest(chart, etag.getValue()), response);
+    verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    verify(response, never()).getOutputStream();
+
+    // served by the server cache
+    servlet.doGet(newRequest(chart, null), newResponse());
+    assertThat(chart.generations).isEqualTo(1);
+  }
+
+  @Test
+  public void should_not_cache_charts_which_are_not_cacheable() throws Exception {
+    CountingChart chart = new CountingChart();
+    ChartsServlet servlet = newServlet(chart);
+
+    HttpServletResponse response = newResponse();
+    servlet.doGet(newRequest(chart, null), response);
+    servlet.doGet(newRequest(chart, null), response);
+
+    verify(response, never()).setHeader(eq("ETag"), anyString());
+    verify(response, never()).setHeader(eq("Cache-Control"), anyString());
+    assertThat(chart.generations).isEqualTo(2);
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  private ChartsServlet newServlet(Chart chart) {
+    final ChartFactory chartFactory = new ChartFactory(new Chart[] {chart});
+    return new ChartsServlet() {
+      @Override
+      ChartFactory getChartFactory() {
+        return chartFactory;
+      }
+
+      @Override
+      ChartCache getCache() {
+        return cache;
+      }
+    };
+  }
+
+  private HttpServletRequest newRequest(Chart chart, String ifNoneMatch) {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getParameterNames()).thenReturn(Collections.enumeration(Arrays.asList("ck", "v")));
+    when(request.getParameter("ck")).thenReturn(chart.getKey());
+    when(request.getParameter("v")).thenReturn("1,2,3");
+    when(request.getHeader("If-None-Match")).thenReturn(ifNoneMatch);
+    return request;
+  }
+
+  private HttpServletResponse newResponse() throws IOException {
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+      @Override
+      public void write(int b) {
+        output.write(b);
+      }
+    });
+    return response;
+  }
+
+  static class CountingChart implements Chart {
+    int generations = 0;
+
+    public String getKey() {
+      return "counting";
+    }
+
+    public BufferedImage generateImage(ChartParameters params) {
+      generations++;
+      return new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+    }
+  }
+
+  @Cacheable
+  static class CacheableChart extends CountingChart {
+  }
+}
@@ -56,4 +56,11 @@ public class RubyTextServiceTest {
     verify(sourceDecorator, times(1)).getDecoratedSourceAsHtml(123L);
     verifyZeroInteractions(macroInterpreter);
   }
+
+  @Test
+  public void highlightedSourceLinesOfRange() throws Exception {
+    text.highlightedSourceLines(123L, 5, 10);
+    verify(sourceDecorator, times(1)).getDecoratedSourceAsHtml(123L, 5, 10);
+    verifyZeroInteractions(macroInterpreter);
+  }
 }